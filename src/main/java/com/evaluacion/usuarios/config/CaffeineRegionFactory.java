@@ -0,0 +1,68 @@
+package com.evaluacion.usuarios.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Regiones de la caché de segundo nivel de Hibernate sobre JCache/Caffeine, configuradas desde las
+ * propiedades de Hibernate ({@code spring.jpa.properties} en {@code application.yml}):
+ * {@code hibernate.cache.caffeine.<region>.maximum-size} (entradas) y {@code .ttl} (desde la
+ * escritura, ISO-8601). Una región sin configurar usa {@code hibernate.cache.caffeine.default.*}.
+ * <p>
+ * Cada SessionFactory tiene su propio {@link CacheManager}: el del proveedor por defecto es único
+ * en la JVM, y dos contextos con bases distintas (p. ej. en los tests) compartirían las entradas.
+ * Las entradas se guardan por referencia: Hibernate ya guarda copias desensambladas de la
+ * entidad, y copiarlas otra vez por serialización en cada lectura no aporta nada.
+ */
+public class CaffeineRegionFactory extends JCacheRegionFactory {
+
+    private static final String PREFIJO = "hibernate.cache.caffeine.";
+    private static final long MAXIMUM_SIZE_POR_DEFECTO = 10_000;
+    private static final Duration TTL_POR_DEFECTO = Duration.ofMinutes(10);
+
+    private volatile Map<String, Object> propiedades = Map.of();
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map<String, Object> properties) {
+        this.propiedades = properties;
+        CachingProvider provider = getCachingProvider(properties);
+        return provider.getCacheManager(URI.create("urn:usuarios-api:hibernate:" + UUID.randomUUID()), getClassLoader(provider));
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        configuracion.setMaximumSize(OptionalLong.of(maximumSize(regionName)));
+        configuracion.setExpireAfterWrite(OptionalLong.of(ttl(regionName).toNanos()));
+        configuracion.setStoreByValue(false);
+        return getCacheManager().createCache(regionName, configuracion);
+    }
+
+    private long maximumSize(String region) {
+        String valor = propiedad(region, "maximum-size");
+        return valor != null ? Long.parseLong(valor) : MAXIMUM_SIZE_POR_DEFECTO;
+    }
+
+    private Duration ttl(String region) {
+        String valor = propiedad(region, "ttl");
+        return valor != null ? Duration.parse(valor) : TTL_POR_DEFECTO;
+    }
+
+    private String propiedad(String region, String nombre) {
+        Object valor = propiedades.get(PREFIJO + region + "." + nombre);
+        if (valor == null) {
+            valor = propiedades.get(PREFIJO + "default." + nombre);
+        }
+        return valor != null ? valor.toString().trim() : null;
+    }
+}
@@ -5,17 +5,55 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.http.MediaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.evaluacion.usuarios.security.BoundedPasswordEncoder;
 import com.evaluacion.usuarios.security.JwtAuthenticationFilter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.evaluacion.usuarios.security.PasswordEncoders;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
 public class SecurityConfig {
 
+    /**
+     * Algoritmo y costo de los hashes nuevos. Con {@code calibrate: true} el costo se ajusta al
+     * arrancar para que un hash tarde como máximo {@code target-latency} en este hardware.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoders.Settings passwordHashingSettings(
+            @Value("${security.password.hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${security.password.hashing.bcrypt.strength:10}") int bcryptStrength,
+            @Value("${security.password.hashing.argon2.salt-length:16}") int argon2SaltLength,
+            @Value("${security.password.hashing.argon2.hash-length:32}") int argon2HashLength,
+            @Value("${security.password.hashing.argon2.parallelism:1}") int argon2Parallelism,
+            @Value("${security.password.hashing.argon2.memory-kib:19456}") int argon2MemoryKib,
+            @Value("${security.password.hashing.argon2.iterations:2}") int argon2Iterations,
+            @Value("${security.password.hashing.pbkdf2.iterations:310000}") int pbkdf2Iterations,
+            @Value("${security.password.hashing.calibrate:false}") boolean calibrate,
+            @Value("${security.password.hashing.target-latency:PT0.1S}") java.time.Duration targetLatency,
+            @Value("${security.password.hashing.bcrypt.min-strength:10}") int minBcryptStrength,
+            @Value("${security.password.hashing.pbkdf2.min-iterations:100000}") int minPbkdf2Iterations) {
+        var settings = new PasswordEncoders.Settings(algorithm, bcryptStrength, argon2SaltLength, argon2HashLength,
+                argon2Parallelism, argon2MemoryKib, argon2Iterations, pbkdf2Iterations);
+        return calibrate
+                ? PasswordEncoders.calibrate(settings, targetLatency, minBcryptStrength, minPbkdf2Iterations)
+                : settings;
+    }
+
+    /**
+     * El hashing corre en un pool propio con cola acotada: como mucho {@code threads + queue-capacity}
+     * hilos de Tomcat quedan esperando un hash, el resto recibe 503 de inmediato.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordEncoders.Settings passwordHashingSettings,
+                                           @Value("${security.password.hashing.threads:0}") int threads,
+                                           @Value("${security.password.hashing.queue-capacity:32}") int queueCapacity,
+                                           @Value("${security.password.hashing.max-wait:PT2S}") java.time.Duration maxWait,
+                                           @Value("${security.password.hashing.retry-after:PT1S}") java.time.Duration retryAfter,
+                                           MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(PasswordEncoders.delegating(passwordHashingSettings), poolSize, queueCapacity, maxWait, retryAfter, meterRegistry);
     }
 
     @Bean
@@ -24,12 +24,13 @@ public class AuthController {
     }
 
     @PostMapping(value = "/login", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    @Operation(summary = "Login", description = "Valida credenciales y emite token JWT. Actualiza ultimoLogin y persiste token en usuario.")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest body) {
+    @Operation(summary = "Login", description = "Valida credenciales y emite token JWT. Actualiza ultimoLogin y persiste token en usuario. "
+            + "Responde 429 con Retry-After si el correo o la IP superan el límite de intentos.")
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest body, jakarta.servlet.http.HttpServletRequest request) {
         String correo = body.correo();
         String contrasena = body.contrasena();
 
-        String token = authenticationService.login(correo, contrasena);
+        String token = authenticationService.login(correo, contrasena, request.getRemoteAddr());
         if (token != null) {
             return ResponseEntity.ok(java.util.Map.of("token", token));
         }
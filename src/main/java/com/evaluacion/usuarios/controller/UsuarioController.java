@@ -2,6 +2,9 @@ package com.evaluacion.usuarios.controller;
 
 import com.evaluacion.usuarios.dto.*;
 import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.service.UsuarioBatchService;
+import com.evaluacion.usuarios.service.UsuarioExportService;
+import com.evaluacion.usuarios.service.UsuarioImportService;
 import com.evaluacion.usuarios.service.UsuarioService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -21,50 +24,163 @@ import java.util.stream.Collectors;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final UsuarioBatchService usuarioBatchService;
+    private final UsuarioImportService usuarioImportService;
+    private final UsuarioExportService usuarioExportService;
 
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, UsuarioBatchService usuarioBatchService,
+                             UsuarioImportService usuarioImportService, UsuarioExportService usuarioExportService) {
         this.usuarioService = usuarioService;
+        this.usuarioBatchService = usuarioBatchService;
+        this.usuarioImportService = usuarioImportService;
+        this.usuarioExportService = usuarioExportService;
     }
 
     @GetMapping
-    @Operation(summary = "Listar usuarios", description = "Retorna todos los usuarios (requiere JWT)")
-    public ResponseEntity<List<Usuario>> listar() {
-        return ResponseEntity.ok(usuarioService.findAll());
+    @Operation(summary = "Listar usuarios", description = "Retorna una página de usuarios ordenada por fecha de creación (requiere JWT). "
+            + "Si hay más, la cabecera X-Next-Cursor (y Link rel=\"next\") trae el cursor para pedir la siguiente con ?cursor=")
+    public ResponseEntity<List<UsuarioResponse>> listar(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
+        return paginada(usuarioService.findPage(cursor, limit));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Buscar usuarios", description = "Usuarios que cumplen todos los filtros indicados (requiere JWT): "
+            + "prefijo de nombre y dominio del correo sin distinguir mayúsculas, correo exacto, y código de país "
+            + "(y de ciudad) de alguno de sus teléfonos. Requiere al menos un filtro; se pagina como el listado")
+    public ResponseEntity<List<UsuarioResponse>> buscar(@RequestParam(required = false) String nombre,
+                                                        @RequestParam(required = false) String correo,
+                                                        @RequestParam(required = false) String dominio,
+                                                        @RequestParam(required = false) String codigoPais,
+                                                        @RequestParam(required = false) String codigoCiudad,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        var filtro = new com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro(nombre, correo, dominio, codigoPais, codigoCiudad);
+        return paginada(usuarioService.search(filtro, cursor, limit));
+    }
+
+    @GetMapping("/telefono")
+    @Operation(summary = "Usuarios por teléfono", description = "Usuarios que tienen registrado el teléfono indicado por "
+            + "codigoPais, codigoCiudad y numero, todos obligatorios (requiere JWT). Ordenados por fecha de creación")
+    public ResponseEntity<List<UsuarioResponse>> porTelefono(@RequestParam(required = false) String codigoPais,
+                                                             @RequestParam(required = false) String codigoCiudad,
+                                                             @RequestParam(required = false) String numero) {
+        return ResponseEntity.ok(usuarioService.findByTelefono(codigoPais, codigoCiudad, numero));
+    }
+
+    /** Cuerpo con la página y, si hay más, cabeceras X-Next-Cursor y Link con la misma consulta y el cursor siguiente. */
+    private static ResponseEntity<List<UsuarioResponse>> paginada(UsuarioService.Pagina pagina) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.siguienteCursor() != null) {
+            String siguiente = org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", pagina.siguienteCursor())
+                    .toUriString();
+            respuesta.header("X-Next-Cursor", pagina.siguienteCursor())
+                    .header(org.springframework.http.HttpHeaders.LINK, "<" + siguiente + ">; rel=\"next\"");
+        }
+        return respuesta.body(pagina.usuarios());
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Exportar usuarios (NDJSON)", description = "Todos los usuarios, uno por línea y ordenados por fecha de creación (requiere JWT). "
+            + "Se escriben a medida que se leen de la base, con memoria acotada independiente del total")
+    public void exportar(jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        usuarioExportService.exportNdjson(response.getOutputStream());
+    }
+
+    /** ETag fuerte de una versión de {@link Usuario}. */
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Si alguna ETag de la lista de {@code If-None-Match} / {@code If-Match} coincide con {@code etag}.
+     * {@code *} coincide siempre; con comparación fuerte ({@code debil = false}) una ETag {@code W/} nunca coincide.
+     */
+    private static boolean etagMatches(String header, String etag, boolean debil) {
+        for (String candidata : header.split(",")) {
+            String valor = candidata.trim();
+            if (valor.equals("*")) return true;
+            if (valor.startsWith("W/")) {
+                if (!debil) continue;
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Versión que debe tener el usuario para aplicar la escritura, o {@code null} sin {@code If-Match}.
+     * Solo lee la columna de versión; el servicio la vuelve a comparar al cargar el usuario.
+     */
+    private Long versionIfMatch(UUID id, String ifMatch) {
+        if (ifMatch == null) return null;
+        long actual = usuarioService.findVersion(id);
+        if (!etagMatches(ifMatch, etag(actual), false)) {
+            throw new com.evaluacion.usuarios.exception.PreconditionFailedException("El usuario fue modificado por otra solicitud");
+        }
+        return actual;
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener usuario por id", description = "Retorna un usuario específico (requiere JWT)")
-    public ResponseEntity<Usuario> obtener(@PathVariable UUID id) {
-        return ResponseEntity.ok(usuarioService.findById(id));
+    @Operation(summary = "Obtener usuario por id", description = "Retorna un usuario específico (requiere JWT). "
+            + "Incluye ETag con la versión; con If-None-Match vigente responde 304 sin cuerpo")
+    public ResponseEntity<UsuarioResponse> obtener(@PathVariable UUID id,
+                                                   @RequestHeader(value = org.springframework.http.HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // Se responde con la columna de versión sola: sin teléfonos ni serialización.
+            String actual = etag(usuarioService.findVersion(id));
+            if (etagMatches(ifNoneMatch, actual, true)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(actual).build();
+            }
+        }
+        UsuarioResponse usuario = usuarioService.findResponseById(id);
+        return ResponseEntity.ok().eTag(etag(usuario.version())).body(usuario);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Crear usuario", description = "Crea usuario público sin JWT y genera token inicial")
-    public ResponseEntity<Usuario> crear(@Validated @RequestBody UsuarioCreateRequest dto) {
-        Usuario nuevo = new Usuario();
-        nuevo.setNombre(dto.nombre());
-        nuevo.setCorreo(dto.correo());
-        nuevo.setContrasena(dto.contrasena());
-        if (dto.telefonos() != null) {
-            List<com.evaluacion.usuarios.model.Telefono> telefonos = dto.telefonos().stream()
-                    .map(t -> {
-                        var tel = new com.evaluacion.usuarios.model.Telefono();
-                        tel.setNumero(t.numero());
-                        tel.setCodigoCiudad(t.codigoCiudad());
-                        tel.setCodigoPais(t.codigoPais());
-                        tel.setUsuario(nuevo);
-                        return tel;
-                    })
-                    .collect(Collectors.toList());
-            nuevo.setTelefonos(telefonos);
-        }
-        Usuario creado = usuarioService.create(nuevo);
-        return ResponseEntity.status(HttpStatus.CREATED).body(creado);
+    public ResponseEntity<UsuarioResponse> crear(@Validated @RequestBody UsuarioCreateRequest dto) {
+        Usuario creado = usuarioService.create(dto.toUsuario());
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(creado.getVersion())).body(UsuarioResponse.from(creado));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Crear usuarios en lote", description = "Alta masiva con las mismas reglas que el alta individual (requiere JWT). "
+            + "Cada elemento tiene su propio resultado con el código HTTP que habría respondido el alta individual; "
+            + "responde 201 si todos se crearon y 207 si alguno falló")
+    public ResponseEntity<UsuarioBatchResponse> crearLote(@RequestBody List<UsuarioCreateRequest> dtos) {
+        List<Usuario> usuarios = dtos.stream()
+                .map(dto -> dto != null ? dto.toUsuario() : null)
+                .collect(Collectors.toList());
+        List<UsuarioBatchResult> resultados = usuarioBatchService.createAll(usuarios);
+        int creados = (int) resultados.stream().filter(r -> r.estado() == HttpStatus.CREATED.value()).count();
+        int fallidos = resultados.size() - creados;
+        return ResponseEntity.status(fallidos == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(new UsuarioBatchResponse(creados, fallidos, resultados));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Importar usuarios (NDJSON)", description = "Un usuario por línea, con el formato del alta individual (requiere JWT). "
+            + "Se procesa en lotes con memoria constante y la respuesta NDJSON informa, a medida que avanza, "
+            + "los errores por línea y el total procesado tras cada lote")
+    public void importar(jakarta.servlet.http.HttpServletRequest request,
+                         jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        usuarioImportService.importNdjson(request.getInputStream(), response.getOutputStream());
     }
 
     @PutMapping(value = "{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Operation(summary = "Reemplazar usuario", description = "PUT completo. Contraseña opcional: si se incluye y válida regenera token")
-    public ResponseEntity<Usuario> reemplazar(@PathVariable UUID id,
+    @Operation(summary = "Reemplazar usuario", description = "PUT completo. Contraseña opcional: si se incluye y válida regenera token. "
+            + "Con If-Match responde 412 si el usuario cambió; sin él, 409 si otra solicitud lo modificó a la vez")
+    public ResponseEntity<UsuarioResponse> reemplazar(@PathVariable UUID id,
+                                              @RequestHeader(value = org.springframework.http.HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                               @Validated @RequestBody UsuarioReplaceRequest dto) {
         Usuario datos = new Usuario();
         datos.setNombre(dto.nombre());
@@ -82,13 +198,15 @@ public class UsuarioController {
                     .collect(Collectors.toList());
             datos.setTelefonos(telefonos);
         }
-        Usuario actualizado = usuarioService.replace(id, datos);
-        return ResponseEntity.ok(actualizado);
+        Usuario actualizado = usuarioService.replace(id, datos, versionIfMatch(id, ifMatch));
+        return ResponseEntity.ok().eTag(etag(actualizado.getVersion())).body(UsuarioResponse.from(actualizado));
     }
 
     @PatchMapping(value = "{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Operation(summary = "Actualizar parcialmente usuario", description = "PATCH parcial. Solo campos presentes cambian; contraseña opcional")
-    public ResponseEntity<Usuario> actualizarParcial(@PathVariable UUID id,
+    @Operation(summary = "Actualizar parcialmente usuario", description = "PATCH parcial. Solo campos presentes cambian; contraseña opcional. "
+            + "Con If-Match responde 412 si el usuario cambió; sin él, 409 si otra solicitud lo modificó a la vez")
+    public ResponseEntity<UsuarioResponse> actualizarParcial(@PathVariable UUID id,
+                                                     @RequestHeader(value = org.springframework.http.HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                      @RequestBody UsuarioPatchRequest dto) {
         Usuario parcial = new Usuario();
         parcial.setNombre(dto.nombre());
@@ -106,14 +224,26 @@ public class UsuarioController {
                     .collect(Collectors.toList());
             parcial.setTelefonos(telefonos);
         }
-        Usuario resultado = usuarioService.update(id, parcial);
-        return ResponseEntity.ok(resultado);
+        Usuario resultado = usuarioService.update(id, parcial, versionIfMatch(id, ifMatch));
+        return ResponseEntity.ok().eTag(etag(resultado.getVersion())).body(UsuarioResponse.from(resultado));
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Eliminar usuario", description = "Borra usuario por id (requiere JWT)")
-    public ResponseEntity<java.util.Map<String,String>> eliminar(@PathVariable UUID id) {
-        usuarioService.delete(id);
+    @Operation(summary = "Eliminar usuario", description = "Borra usuario por id (requiere JWT); deja de aparecer de inmediato y se elimina "
+            + "físicamente en la purga. Con If-Match responde 412 si el usuario cambió; sin él, 409 si otra solicitud lo modificó a la vez")
+    public ResponseEntity<java.util.Map<String,String>> eliminar(@PathVariable UUID id,
+                                                                 @RequestHeader(value = org.springframework.http.HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        usuarioService.delete(id, versionIfMatch(id, ifMatch));
         return ResponseEntity.ok(java.util.Map.of("mensaje", "Usuario eliminado"));
     }
+
+    @DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Eliminar usuarios en lote", description = "Borra los usuarios de la lista de ids (requiere JWT) "
+            + "con un UPDATE por grupo de ids. Informa cuántos se borraron y qué ids no existían")
+    public ResponseEntity<UsuarioDeleteResponse> eliminarLote(@RequestBody List<UUID> ids) {
+        List<UUID> eliminados = usuarioService.deleteAll(ids);
+        java.util.Set<UUID> borrados = new java.util.HashSet<>(eliminados);
+        List<UUID> noEncontrados = ids.stream().filter(java.util.Objects::nonNull).distinct().filter(id -> !borrados.contains(id)).collect(Collectors.toList());
+        return ResponseEntity.ok(new UsuarioDeleteResponse(eliminados.size(), noEncontrados));
+    }
 }
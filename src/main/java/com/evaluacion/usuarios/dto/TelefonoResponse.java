@@ -0,0 +1,13 @@
+package com.evaluacion.usuarios.dto;
+
+import com.evaluacion.usuarios.model.Telefono;
+
+public record TelefonoResponse(
+        String numero,
+        String codigoCiudad,
+        String codigoPais
+) {
+    public static TelefonoResponse from(Telefono telefono) {
+        return new TelefonoResponse(telefono.getNumero(), telefono.getCodigoCiudad(), telefono.getCodigoPais());
+    }
+}
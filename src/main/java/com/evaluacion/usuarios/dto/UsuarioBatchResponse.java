@@ -0,0 +1,9 @@
+package com.evaluacion.usuarios.dto;
+
+import java.util.List;
+
+public record UsuarioBatchResponse(
+        int creados,
+        int fallidos,
+        List<UsuarioBatchResult> resultados
+) {}
@@ -0,0 +1,19 @@
+package com.evaluacion.usuarios.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Resultado de un elemento de {@code POST /api/usuarios/batch}. {@code estado} es el código HTTP
+ * que habría respondido el alta individual (201, 400, 409, 503...).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UsuarioBatchResult(
+        int indice,
+        String correo,
+        int estado,
+        UUID id,
+        String token,
+        String mensaje
+) {}
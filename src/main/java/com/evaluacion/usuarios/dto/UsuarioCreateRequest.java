@@ -1,8 +1,11 @@
 package com.evaluacion.usuarios.dto;
 
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import java.util.ArrayList;
 import java.util.List;
 
 public record UsuarioCreateRequest(
@@ -10,4 +13,28 @@ public record UsuarioCreateRequest(
         @NotBlank @Email String correo,
         @NotBlank @Size(min = 8) String contrasena,
         List<TelefonoRequest> telefonos
-) {}
+) {
+
+    /** Usuario nuevo con sus teléfonos, listo para {@code UsuarioService.create}. */
+    public Usuario toUsuario() {
+        Usuario nuevo = new Usuario();
+        nuevo.setNombre(nombre);
+        nuevo.setCorreo(correo);
+        nuevo.setContrasena(contrasena);
+        if (telefonos != null) {
+            List<Telefono> lista = new ArrayList<>(telefonos.size());
+            for (TelefonoRequest t : telefonos) {
+                var tel = new Telefono();
+                if (t != null) {
+                    tel.setNumero(t.numero());
+                    tel.setCodigoCiudad(t.codigoCiudad());
+                    tel.setCodigoPais(t.codigoPais());
+                }
+                tel.setUsuario(nuevo);
+                lista.add(tel);
+            }
+            nuevo.setTelefonos(lista);
+        }
+        return nuevo;
+    }
+}
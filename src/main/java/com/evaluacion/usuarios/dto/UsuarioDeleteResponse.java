@@ -0,0 +1,9 @@
+package com.evaluacion.usuarios.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UsuarioDeleteResponse(
+        int eliminados,
+        List<UUID> noEncontrados
+) {}
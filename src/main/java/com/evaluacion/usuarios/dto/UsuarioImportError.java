@@ -0,0 +1,12 @@
+package com.evaluacion.usuarios.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Línea de {@code POST /api/usuarios/import} que no se pudo importar. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UsuarioImportError(
+        long linea,
+        String correo,
+        int estado,
+        String mensaje
+) {}
@@ -0,0 +1,16 @@
+package com.evaluacion.usuarios.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Avance de {@code POST /api/usuarios/import}, emitido tras cada lote. La última línea de la
+ * respuesta lleva {@code completado = true}, o {@code false} y un {@code mensaje} si se interrumpió.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UsuarioImportProgress(
+        long procesados,
+        long creados,
+        long fallidos,
+        Boolean completado,
+        String mensaje
+) {}
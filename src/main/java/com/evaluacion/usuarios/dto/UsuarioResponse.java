@@ -0,0 +1,45 @@
+package com.evaluacion.usuarios.dto;
+
+import com.evaluacion.usuarios.model.Usuario;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Usuario tal como lo devuelve la API (mismos campos que antes exponía la entidad, sin la
+ * contraseña). Las lecturas lo construyen con una proyección de {@code UsuarioRepository}, sin
+ * cargar entidades; las escrituras con {@link #from(Usuario)}. {@code version} no va en el cuerpo:
+ * se envía como ETag.
+ */
+public record UsuarioResponse(
+        UUID id,
+        String nombre,
+        String correo,
+        LocalDateTime creado,
+        LocalDateTime modificado,
+        LocalDateTime ultimoLogin,
+        String token,
+        boolean activo,
+        List<TelefonoResponse> telefonos,
+        @JsonIgnore long version
+) {
+    /** Constructor de la proyección JPQL; los teléfonos se agregan con {@link #withTelefonos}. */
+    public UsuarioResponse(UUID id, String nombre, String correo, LocalDateTime creado, LocalDateTime modificado,
+                           LocalDateTime ultimoLogin, String token, boolean activo, long version) {
+        this(id, nombre, correo, creado, modificado, ultimoLogin, token, activo, List.of(), version);
+    }
+
+    public UsuarioResponse withTelefonos(List<TelefonoResponse> telefonos) {
+        return new UsuarioResponse(id, nombre, correo, creado, modificado, ultimoLogin, token, activo, telefonos, version);
+    }
+
+    public static UsuarioResponse from(Usuario usuario) {
+        List<TelefonoResponse> telefonos = usuario.getTelefonos() == null ? List.of()
+                : usuario.getTelefonos().stream().map(TelefonoResponse::from).toList();
+        return new UsuarioResponse(usuario.getId(), usuario.getNombre(), usuario.getCorreo(), usuario.getCreado(),
+                usuario.getModificado(), usuario.getUltimoLogin(), usuario.getToken(), usuario.isActivo(), telefonos,
+                usuario.getVersion());
+    }
+}
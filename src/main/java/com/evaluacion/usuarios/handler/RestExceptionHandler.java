@@ -55,6 +55,59 @@ public class RestExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(com.evaluacion.usuarios.exception.InvalidCursorException.class)
+    public ResponseEntity<ApiError> handleInvalidCursor(com.evaluacion.usuarios.exception.InvalidCursorException ex) {
+        ApiError error = new ApiError(ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(com.evaluacion.usuarios.exception.InvalidSearchException.class)
+    public ResponseEntity<ApiError> handleInvalidSearch(com.evaluacion.usuarios.exception.InvalidSearchException ex) {
+        ApiError error = new ApiError(ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(com.evaluacion.usuarios.exception.PreconditionFailedException.class)
+    public ResponseEntity<ApiError> handlePreconditionFailed(com.evaluacion.usuarios.exception.PreconditionFailedException ex) {
+        ApiError error = new ApiError(ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Otra escritura cambió la versión entre la lectura y el UPDATE. Si el cliente envió If-Match es
+     * una precondición fallida (412); si no, un conflicto de concurrencia (409) que puede reintentar.
+     */
+    @ExceptionHandler(org.springframework.dao.OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLock(org.springframework.dao.OptimisticLockingFailureException ex,
+                                                         jakarta.servlet.http.HttpServletRequest request) {
+        log.debug("Optimistic lock conflict: {}", ex.getMessage());
+        ApiError error = new ApiError("El usuario fue modificado por otra solicitud");
+        HttpStatus status = request.getHeader(org.springframework.http.HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        return new ResponseEntity<>(error, status);
+    }
+
+    @ExceptionHandler(com.evaluacion.usuarios.exception.BatchTooLargeException.class)
+    public ResponseEntity<ApiError> handleBatchTooLarge(com.evaluacion.usuarios.exception.BatchTooLargeException ex) {
+        ApiError error = new ApiError(ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler(com.evaluacion.usuarios.exception.ServiceBusyException.class)
+    public ResponseEntity<ApiError> handleServiceBusy(com.evaluacion.usuarios.exception.ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiError(ex.getMessage()));
+    }
+
+    @ExceptionHandler(com.evaluacion.usuarios.exception.TooManyRequestsException.class)
+    public ResponseEntity<ApiError> handleTooManyRequests(com.evaluacion.usuarios.exception.TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiError(ex.getMessage()));
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ApiError> handleMalformedJson(HttpMessageNotReadableException ex) {
         String msg = "JSON mal formado o contenido inválido";
@@ -0,0 +1,41 @@
+package com.evaluacion.usuarios.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tokens_revocados")
+public class TokenRevocado {
+
+    @Id
+    @Column(name = "firma", length = 32, nullable = false, updatable = false)
+    private String firma;
+
+    @Column(name = "expira", nullable = false)
+    private LocalDateTime expira;
+
+    public TokenRevocado() {
+    }
+
+    public TokenRevocado(String firma, LocalDateTime expira) {
+        this.firma = firma;
+        this.expira = expira;
+    }
+
+    public String getFirma() {
+        return firma;
+    }
+
+    public void setFirma(String firma) {
+        this.firma = firma;
+    }
+
+    public LocalDateTime getExpira() {
+        return expira;
+    }
+
+    public void setExpira(LocalDateTime expira) {
+        this.expira = expira;
+    }
+}
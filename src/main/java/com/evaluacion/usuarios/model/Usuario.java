@@ -3,28 +3,44 @@ package com.evaluacion.usuarios.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.domain.Persistable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * En la caché de segundo nivel (región {@code usuarios}), junto con su colección de teléfonos y la
+ * resolución correo → id del natural id. Las escrituras por JPA la actualizan solas; las que van
+ * por SQL directo la invalidan con {@code UsuarioEntityCache}.
+ */
 @Entity
 @Table(name = "usuarios")
-public class Usuario {
+@Cacheable
+@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE, region = "usuarios")
+@org.hibernate.annotations.NaturalIdCache(region = "usuarios-correo")
+public class Usuario implements Persistable<UUID> {
 
+    /** El id se asigna en la aplicación antes de insertar, para poder incluirlo en el token inicial. */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @Column(updatable = false, nullable = false)
     private UUID id;
 
+    @Transient
+    @JsonIgnore
+    private boolean nuevo = true;
+
     @NotBlank
     @Column(nullable = false)
     private String nombre;
 
+    /** Natural id mutable (PUT/PATCH pueden cambiarlo): {@code findByCorreo} resuelve el id por la caché. */
     @NotBlank(message = "El campo de correo electrónico es obligatorio.")
     @Email(message = "El correo debe tener un formato válido (ej. usuario@dominio.cl).")
+    @org.hibernate.annotations.NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     @JsonProperty("correo")
     private String correo;
@@ -46,7 +62,7 @@ public class Usuario {
     @JsonProperty("ultimoLogin")
     private LocalDateTime ultimoLogin = LocalDateTime.now();
 
-    @Column(nullable = true)
+    @Column(nullable = true, length = 1024)
     @JsonProperty("token")
     private String token;
 
@@ -54,7 +70,28 @@ public class Usuario {
     @JsonProperty("activo")
     private boolean activo = true;
 
+    /** Versión optimista: Hibernate la incrementa en cada UPDATE y la API la expone como ETag. */
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
+
+    /** Columnas generadas por la base para {@code GET /api/usuarios/search} (ver schema.sql); solo para consultas. */
+    @Column(name = "nombre_busqueda", insertable = false, updatable = false)
+    @JsonIgnore
+    private String nombreBusqueda;
+
+    @Column(name = "correo_dominio", insertable = false, updatable = false)
+    @JsonIgnore
+    private String correoDominio;
+
+    /**
+     * Lazy; las lecturas por id la traen con un entity graph (o de la caché de la colección) y los
+     * listados la inicializan de a {@code @BatchSize} usuarios por consulta ({@code usuario_id IN (...)}), sin N+1.
+     */
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @org.hibernate.annotations.BatchSize(size = 100)
+    @org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE, region = "usuarios-telefonos")
     @com.fasterxml.jackson.annotation.JsonManagedReference
     @JsonProperty("telefonos")
     private List<Telefono> telefonos = new ArrayList<>();
@@ -81,6 +118,18 @@ public class Usuario {
         return id;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistido() {
+        this.nuevo = false;
+    }
+
     public boolean isActivo() {
         return activo;
     }
@@ -149,6 +198,14 @@ public class Usuario {
         this.token = token;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public List<Telefono> getTelefonos() {
         return telefonos;
     }
@@ -0,0 +1,23 @@
+package com.evaluacion.usuarios.repository;
+
+import com.evaluacion.usuarios.model.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, String> {
+
+    List<TokenRevocado> findTop5000ByExpiraAfterAndFirmaGreaterThanOrderByFirma(LocalDateTime ahora, String firma);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TokenRevocado t where t.expira < :ahora")
+    int deleteExpired(LocalDateTime ahora);
+}
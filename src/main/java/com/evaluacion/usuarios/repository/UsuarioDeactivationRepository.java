@@ -0,0 +1,24 @@
+package com.evaluacion.usuarios.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Borrado lógico: pasa a {@code activo = FALSE} y devuelve lo que hace falta para invalidar
+ * cachés y revocar el token; implementado en {@link UsuarioDeactivationRepositoryImpl}. Las filas
+ * y sus teléfonos se eliminan después, fuera de horario, con {@code UsuarioPurger}.
+ */
+public interface UsuarioDeactivationRepository {
+
+    /** Id, correo y token de un usuario desactivado, leídos antes del UPDATE. */
+    record UsuarioEliminado(UUID id, String correo, String token) {
+    }
+
+    /** Desactiva los usuarios activos de {@code ids}; los que no existen o ya estaban borrados se ignoran. */
+    List<UsuarioEliminado> deactivateAllById(Collection<UUID> ids, LocalDateTime modificado);
+
+    /** Como {@link #deactivateAllById}, solo si el usuario sigue en {@code version}. */
+    List<UsuarioEliminado> deactivateByIdAndVersion(UUID id, long version, LocalDateTime modificado);
+}
@@ -0,0 +1,59 @@
+package com.evaluacion.usuarios.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dos sentencias en la misma transacción, en SQL estándar: {@code SELECT ... FOR UPDATE} de las
+ * filas activas (quedan bloqueadas, así que el token leído es el que se revoca) y un UPDATE por
+ * id. Van por JDBC y no por JPQL: un UPDATE masivo de Hibernate vaciaría la región entera de
+ * usuarios de la caché de segundo nivel, y {@code UsuarioService} ya invalida solo los ids borrados.
+ */
+@Transactional
+class UsuarioDeactivationRepositoryImpl implements UsuarioDeactivationRepository {
+
+    private static final String SELECT_ACTIVOS = "SELECT id, correo, token FROM usuarios "
+            + "WHERE id IN (:ids) AND activo = TRUE FOR UPDATE";
+    private static final String SELECT_ACTIVO_EN_VERSION = "SELECT id, correo, token FROM usuarios "
+            + "WHERE id = :id AND version = :version AND activo = TRUE FOR UPDATE";
+    private static final String DEACTIVATE = "UPDATE usuarios SET activo = FALSE, modificado = :modificado, "
+            + "version = version + 1 WHERE id IN (:ids)";
+
+    private static final RowMapper<UsuarioEliminado> ELIMINADO = (rs, rowNum) ->
+            new UsuarioEliminado(rs.getObject("id", UUID.class), rs.getString("correo"), rs.getString("token"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    UsuarioDeactivationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public List<UsuarioEliminado> deactivateAllById(Collection<UUID> ids, LocalDateTime modificado) {
+        if (ids.isEmpty()) return List.of();
+        return deactivate(jdbcTemplate.query(SELECT_ACTIVOS, new MapSqlParameterSource("ids", ids), ELIMINADO), modificado);
+    }
+
+    @Override
+    public List<UsuarioEliminado> deactivateByIdAndVersion(UUID id, long version, LocalDateTime modificado) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("id", id).addValue("version", version);
+        return deactivate(jdbcTemplate.query(SELECT_ACTIVO_EN_VERSION, parametros, ELIMINADO), modificado);
+    }
+
+    private List<UsuarioEliminado> deactivate(List<UsuarioEliminado> eliminados, LocalDateTime modificado) {
+        if (!eliminados.isEmpty()) {
+            jdbcTemplate.update(DEACTIVATE, new MapSqlParameterSource("ids", eliminados.stream().map(UsuarioEliminado::id).toList())
+                    .addValue("modificado", Timestamp.valueOf(modificado)));
+        }
+        return eliminados;
+    }
+}
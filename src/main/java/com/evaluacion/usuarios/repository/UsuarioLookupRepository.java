@@ -0,0 +1,19 @@
+package com.evaluacion.usuarios.repository;
+
+import com.evaluacion.usuarios.model.Usuario;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Lecturas de un usuario activo por id y por correo que pasan por la caché de segundo nivel;
+ * implementadas en {@link UsuarioLookupRepositoryImpl}. Un JPQL equivalente iría siempre a la base.
+ */
+public interface UsuarioLookupRepository {
+
+    /** Usuario activo con sus teléfonos inicializados, para lecturas y escrituras por id. */
+    Optional<Usuario> findById(UUID id);
+
+    /** Usuario activo por correo (login y {@code UsuarioDetailsService}). */
+    Optional<Usuario> findByCorreo(String correo);
+}
@@ -0,0 +1,49 @@
+package com.evaluacion.usuarios.repository;
+
+import com.evaluacion.usuarios.model.Usuario;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Por id, {@code find} con un fetch graph de los teléfonos: sin caché es un solo SELECT con LEFT
+ * JOIN; con el usuario y su colección en caché, ninguno. Por correo, el natural id resuelve
+ * correo → id en la región {@code usuarios-correo} y luego carga por id. Los borrados lógicos
+ * siguen en la caché hasta la purga, así que ambos filtran por {@code activo} después de cargar.
+ */
+@Transactional(readOnly = true)
+class UsuarioLookupRepositoryImpl implements UsuarioLookupRepository {
+
+    private final EntityManager entityManager;
+
+    UsuarioLookupRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Usuario> findById(UUID id) {
+        EntityGraph<Usuario> conTelefonos = entityManager.createEntityGraph(Usuario.class);
+        conTelefonos.addAttributeNodes("telefonos");
+        Usuario usuario = entityManager.find(Usuario.class, id, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, conTelefonos));
+        if (usuario == null || !usuario.isActivo()) {
+            return Optional.empty();
+        }
+        Hibernate.initialize(usuario.getTelefonos());
+        return Optional.of(usuario);
+    }
+
+    @Override
+    public Optional<Usuario> findByCorreo(String correo) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Usuario.class)
+                .loadOptional(correo)
+                .filter(Usuario::isActivo);
+    }
+}
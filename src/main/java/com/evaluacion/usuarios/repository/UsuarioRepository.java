@@ -1,14 +1,100 @@
 package com.evaluacion.usuarios.repository;
 
+import com.evaluacion.usuarios.dto.UsuarioResponse;
 import com.evaluacion.usuarios.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Los usuarios borrados quedan con {@code activo = FALSE} hasta que {@code UsuarioPurger} los
+ * elimina, así que toda lectura filtra por {@code u.activo = true}. Por id y por correo la
+ * entidad sale de la caché de segundo nivel ({@link UsuarioLookupRepository}); los listados usan
+ * {@code ix_usuarios_activo_creado_id}, que empieza por {@code activo}. El borrado lógico está en
+ * {@link UsuarioDeactivationRepository}.
+ */
 @Repository
+public interface UsuarioRepository extends JpaRepository<Usuario, UUID>, UsuarioSearchRepository, UsuarioLookupRepository,
+        UsuarioDeactivationRepository {
 
-public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
-    Optional<Usuario> findByCorreo(String correo);
+    /** Si el correo está tomado, incluso por un usuario borrado que aún no se purgó (restricción única). */
+    boolean existsByCorreo(String correo);
+
+    /** Redeclarado para desambiguar: la implementación es la de {@link UsuarioLookupRepository}. */
+    @Override
+    Optional<Usuario> findById(UUID id);
+
+    @Override
+    @Query("SELECT u FROM Usuario u WHERE u.activo = true")
+    List<Usuario> findAll();
+
+    /** Proyección de las columnas de {@code UsuarioResponse}, sin contraseña y sin teléfonos. */
+    String SELECT_RESPONSE = "SELECT new com.evaluacion.usuarios.dto.UsuarioResponse("
+            + "u.id, u.nombre, u.correo, u.creado, u.modificado, u.ultimoLogin, u.token, u.activo, u.version) FROM Usuario u";
+
+    /** Fila de teléfono con el id de su usuario, para agregarlos a {@code UsuarioResponse}. */
+    interface TelefonoFila {
+        UUID getUsuarioId();
+
+        String getNumero();
+
+        String getCodigoCiudad();
+
+        String getCodigoPais();
+    }
+
+    /** Solo la versión (ETag), para responder {@code If-None-Match} / {@code If-Match} sin leer el resto. */
+    @Query("SELECT u.version FROM Usuario u WHERE u.id = :id AND u.activo = true")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Query(SELECT_RESPONSE + " WHERE u.id = :id AND u.activo = true")
+    Optional<UsuarioResponse> findResponseById(@Param("id") UUID id);
+
+    /** Primera página del listado por {@code (creado, id)}; usa el índice {@code ix_usuarios_activo_creado_id}. */
+    @Query(SELECT_RESPONSE + " WHERE u.activo = true ORDER BY u.creado, u.id")
+    List<UsuarioResponse> findFirstPage(Limit limit);
+
+    /**
+     * Página siguiente a {@code (creado, id)} por keyset: el costo no depende de cuántas páginas
+     * se recorrieron, a diferencia de OFFSET. {@code creado >= :creado} acota el rango del índice.
+     */
+    @Query(SELECT_RESPONSE + " WHERE u.activo = true AND u.creado >= :creado AND (u.creado > :creado OR u.id > :id) "
+            + "ORDER BY u.creado, u.id")
+    List<UsuarioResponse> findPageAfter(@Param("creado") LocalDateTime creado, @Param("id") UUID id, Limit limit);
+
+    /**
+     * Todos los usuarios por {@code (creado, id)} como cursor de base de datos: las filas llegan de
+     * a {@code fetchSize} y se convierten a medida que se consumen. Debe consumirse dentro de una
+     * transacción y cerrarse.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + " WHERE u.activo = true ORDER BY u.creado, u.id")
+    Stream<UsuarioResponse> streamAll();
+
+    /**
+     * Usuarios activos dueños del teléfono {@code (codigoPais, codigoCiudad, numero)}, por
+     * {@code (creado, id)}: la subconsulta es una búsqueda exacta en {@code ix_telefonos_pais_ciudad_numero}
+     * y cada dueño se lee por clave primaria.
+     */
+    @Query(SELECT_RESPONSE + " WHERE u.activo = true AND u.id IN (SELECT t.usuario.id FROM Telefono t "
+            + "WHERE t.codigoPais = :codigoPais AND t.codigoCiudad = :codigoCiudad AND t.numero = :numero) "
+            + "ORDER BY u.creado, u.id")
+    List<UsuarioResponse> findByTelefono(@Param("codigoPais") String codigoPais, @Param("codigoCiudad") String codigoCiudad,
+                                         @Param("numero") String numero, Limit limit);
+
+    /** Teléfonos de {@code usuarioIds} por {@code ix_telefonos_usuario_id}. */
+    @Query("SELECT t.usuario.id AS usuarioId, t.numero AS numero, t.codigoCiudad AS codigoCiudad, "
+            + "t.codigoPais AS codigoPais FROM Telefono t WHERE t.usuario.id IN :usuarioIds ORDER BY t.id")
+    List<TelefonoFila> findTelefonos(@Param("usuarioIds") Collection<UUID> usuarioIds);
 }
@@ -0,0 +1,32 @@
+package com.evaluacion.usuarios.repository;
+
+import com.evaluacion.usuarios.dto.UsuarioResponse;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/** Búsqueda de usuarios activos con filtros opcionales; implementada en {@link UsuarioSearchRepositoryImpl}. */
+public interface UsuarioSearchRepository {
+
+    /**
+     * Filtros de la búsqueda; los {@code null} no filtran.
+     *
+     * @param nombre      prefijo del nombre, sin distinguir mayúsculas
+     * @param correo      correo exacto
+     * @param dominio     dominio del correo ({@code example.com}), sin distinguir mayúsculas
+     * @param codigoPais  código de país de alguno de sus teléfonos
+     * @param codigoCiudad código de ciudad de ese mismo teléfono; requiere {@code codigoPais}
+     */
+    record Filtro(String nombre, String correo, String dominio, String codigoPais, String codigoCiudad) {
+    }
+
+    /**
+     * Página de usuarios que cumplen {@code filtro}, por proyección y en el orden del listado
+     * {@code (creado, id)}. Con {@code creado}/{@code id} continúa después de esa posición (keyset).
+     * Solo se agregan a la consulta los predicados de los filtros presentes, para que cada uno
+     * pueda usar su índice.
+     */
+    List<UsuarioResponse> search(Filtro filtro, LocalDateTime creado, UUID id, Limit limit);
+}
@@ -0,0 +1,75 @@
+package com.evaluacion.usuarios.repository;
+
+import com.evaluacion.usuarios.dto.UsuarioResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Arma el JPQL de {@link UsuarioSearchRepository#search} con solo los filtros presentes: con
+ * {@code (:nombre IS NULL OR ...)} el plan se fija sin conocer los valores y H2 recorre la tabla.
+ * <ul>
+ *   <li>nombre: rango {@code [abc, abc + Character.MAX_VALUE)} de {@code ix_usuarios_nombre_busqueda}; con
+ *       {@code LIKE ?} H2 no arma el rango porque el patrón llega como parámetro</li>
+ *   <li>correo: índice único {@code ux_usuarios_correo}</li>
+ *   <li>dominio: {@code ix_usuarios_correo_dominio}</li>
+ *   <li>teléfono: subconsulta {@code id IN (...)} resuelta con {@code ix_telefonos_pais_ciudad_numero}</li>
+ * </ul>
+ */
+class UsuarioSearchRepositoryImpl implements UsuarioSearchRepository {
+
+    private final EntityManager entityManager;
+
+    UsuarioSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UsuarioResponse> search(Filtro filtro, LocalDateTime creado, UUID id, Limit limit) {
+        StringBuilder jpql = new StringBuilder(UsuarioRepository.SELECT_RESPONSE).append(" WHERE u.activo = true");
+        Map<String, Object> parametros = new HashMap<>();
+        if (filtro.nombre() != null) {
+            String prefijo = filtro.nombre().toLowerCase(Locale.ROOT);
+            jpql.append(" AND u.nombreBusqueda >= :nombreDesde AND u.nombreBusqueda < :nombreHasta");
+            parametros.put("nombreDesde", prefijo);
+            parametros.put("nombreHasta", prefijo + Character.MAX_VALUE);
+        }
+        if (filtro.correo() != null) {
+            jpql.append(" AND u.correo = :correo");
+            parametros.put("correo", filtro.correo());
+        }
+        if (filtro.dominio() != null) {
+            jpql.append(" AND u.correoDominio = :dominio");
+            parametros.put("dominio", filtro.dominio().toLowerCase(Locale.ROOT));
+        }
+        if (filtro.codigoPais() != null) {
+            jpql.append(" AND u.id IN (SELECT t.usuario.id FROM Telefono t WHERE t.codigoPais = :codigoPais");
+            parametros.put("codigoPais", filtro.codigoPais());
+            if (filtro.codigoCiudad() != null) {
+                jpql.append(" AND t.codigoCiudad = :codigoCiudad");
+                parametros.put("codigoCiudad", filtro.codigoCiudad());
+            }
+            jpql.append(")");
+        }
+        if (creado != null) {
+            jpql.append(" AND u.creado >= :creado AND (u.creado > :creado OR u.id > :id)");
+            parametros.put("creado", creado);
+            parametros.put("id", id);
+        }
+        jpql.append(" ORDER BY u.creado, u.id");
+
+        TypedQuery<UsuarioResponse> query = entityManager.createQuery(jpql.toString(), UsuarioResponse.class);
+        parametros.forEach(query::setParameter);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+}
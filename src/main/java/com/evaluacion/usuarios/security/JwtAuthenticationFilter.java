@@ -4,7 +4,10 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -23,10 +27,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final boolean statelessPrincipal;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                                   VerifiedTokenCache verifiedTokenCache, TokenRevocationIndex tokenRevocationIndex,
+                                   @Value("${jwt.stateless-principal:false}") boolean statelessPrincipal) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -63,22 +75,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         if (token != null) {
-            boolean valid = jwtUtil.validateToken(token);
-            logger.debug("JwtAuthenticationFilter - token present, valid={}", valid);
-            if (valid) {
-            String username = jwtUtil.getUsername(token);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(auth);
+            JwtClaims claims = verifiedTokenCache.resolve(token, jwtUtil::verifyAndParse);
+            if (claims != null && tokenRevocationIndex.isRevoked(token)) {
+                logger.debug("JwtAuthenticationFilter - token revoked");
+                claims = null;
+            }
+            logger.debug("JwtAuthenticationFilter - token present, valid={}", claims != null);
+            if (claims != null) {
+                String username = claims.subject();
+                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UsernamePasswordAuthenticationToken auth = statelessPrincipal && claims.hasPrincipalClaims()
+                            ? fromClaims(claims)
+                            : fromUserDetails(username);
+                    if (auth != null) {
+                        auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(auth);
+                    }
+                }
             }
         } else {
             logger.debug("JwtAuthenticationFilter - no token found");
         }
-        }
 
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken fromUserDetails(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (!userDetails.isEnabled()) {
+            logger.debug("JwtAuthenticationFilter - user disabled");
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    private UsernamePasswordAuthenticationToken fromClaims(JwtClaims claims) {
+        if (!claims.activo()) {
+            logger.debug("JwtAuthenticationFilter - inactive user in token claims");
+            return null;
+        }
+        List<GrantedAuthority> authorities = claims.roles().stream()
+                .map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r))
+                .toList();
+        return new UsernamePasswordAuthenticationToken(new JwtPrincipal(claims.userId(), claims.subject()), null, authorities);
+    }
 }
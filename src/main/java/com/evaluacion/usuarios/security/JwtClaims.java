@@ -0,0 +1,26 @@
+package com.evaluacion.usuarios.security;
+
+import java.util.List;
+
+/**
+ * Claims verificados de un token JWT emitido por {@link JwtUtil}.
+ * Los instantes {@code iat} y {@code exp} se expresan en milisegundos epoch.
+ * {@code userId}, {@code roles} y {@code activo} son {@code null} en tokens emitidos
+ * antes de que se incluyeran esos claims.
+ */
+public record JwtClaims(String subject, String userId, List<String> roles, Boolean activo,
+                        long issuedAt, long expiresAt) {
+
+    public JwtClaims(String subject, long issuedAt, long expiresAt) {
+        this(subject, null, null, null, issuedAt, expiresAt);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > expiresAt;
+    }
+
+    /** Indica si el token trae lo necesario para construir el principal sin consultar la base de datos. */
+    public boolean hasPrincipalClaims() {
+        return subject != null && userId != null && roles != null && activo != null;
+    }
+}
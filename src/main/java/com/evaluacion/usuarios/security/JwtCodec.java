@@ -0,0 +1,462 @@
+package com.evaluacion.usuarios.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Codificador/decodificador HS256 de una sola pasada.
+ * Reutiliza una instancia de {@link Mac} por hilo y lee el payload directamente
+ * sobre bytes, sin expresiones regulares ni mapas intermedios.
+ */
+final class JwtCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+
+    private static final byte[] ENCODED_HEADER = Base64.getUrlEncoder().withoutPadding()
+            .encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.US_ASCII));
+
+    private static final byte[] KEY_SUB = ascii("sub");
+    private static final byte[] KEY_IAT = ascii("iat");
+    private static final byte[] KEY_EXP = ascii("exp");
+    private static final byte[] KEY_UID = ascii("uid");
+    private static final byte[] KEY_ROLES = ascii("roles");
+    private static final byte[] KEY_ACTIVO = ascii("activo");
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    JwtCodec(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    String encode(String subject, long issuedAt, long expiresAt) {
+        return encode(subject, null, null, null, issuedAt, expiresAt);
+    }
+
+    String encode(String subject, String userId, List<String> roles, Boolean activo, long issuedAt, long expiresAt) {
+        StringBuilder json = new StringBuilder(128 + (subject != null ? subject.length() : 0));
+        json.append("{\"sub\":");
+        appendJsonString(json, subject);
+        if (userId != null) {
+            json.append(",\"uid\":");
+            appendJsonString(json, userId);
+        }
+        if (roles != null) {
+            json.append(",\"roles\":[");
+            for (int i = 0; i < roles.size(); i++) {
+                if (i > 0) json.append(',');
+                appendJsonString(json, roles.get(i));
+            }
+            json.append(']');
+        }
+        if (activo != null) {
+            json.append(",\"activo\":").append(activo.booleanValue());
+        }
+        json.append(",\"iat\":").append(issuedAt)
+            .append(",\"exp\":").append(expiresAt)
+            .append('}');
+        byte[] payload = ENCODER.encode(json.toString().getBytes(StandardCharsets.UTF_8));
+
+        Mac mac = macs.get();
+        mac.update(ENCODED_HEADER);
+        mac.update((byte) '.');
+        mac.update(payload);
+        byte[] signature = ENCODER.encode(mac.doFinal());
+
+        byte[] token = new byte[ENCODED_HEADER.length + 1 + payload.length + 1 + signature.length];
+        int pos = 0;
+        System.arraycopy(ENCODED_HEADER, 0, token, pos, ENCODED_HEADER.length);
+        pos += ENCODED_HEADER.length;
+        token[pos++] = '.';
+        System.arraycopy(payload, 0, token, pos, payload.length);
+        pos += payload.length;
+        token[pos++] = '.';
+        System.arraycopy(signature, 0, token, pos, signature.length);
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Verifica firma y expiración y devuelve los claims, o {@code null} si el token no es válido.
+     */
+    JwtClaims verifyAndParse(String token, long nowMillis) {
+        if (token == null || token.isEmpty()) return null;
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        int firstDot = indexOf(bytes, 0);
+        if (firstDot <= 0) return null;
+        int secondDot = indexOf(bytes, firstDot + 1);
+        if (secondDot < 0 || indexOf(bytes, secondDot + 1) >= 0) return null;
+
+        try {
+            Mac mac = macs.get();
+            mac.update(bytes, 0, secondDot);
+            byte[] expected = mac.doFinal();
+            ByteBuffer provided = DECODER.decode(ByteBuffer.wrap(bytes, secondDot + 1, bytes.length - secondDot - 1));
+            if (!constantTimeEquals(expected, provided)) return null;
+
+            JwtClaims claims = parsePayload(bytes, firstDot, secondDot, true);
+            if (claims == null || claims.isExpired(nowMillis)) return null;
+            return claims;
+        } catch (IllegalArgumentException | ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Lee los claims sin verificar la firma. Solo para usos informativos.
+     */
+    JwtClaims parseUnverified(String token) {
+        if (token == null || token.isEmpty()) return null;
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        int firstDot = indexOf(bytes, 0);
+        if (firstDot < 0) return null;
+        int secondDot = indexOf(bytes, firstDot + 1);
+        if (secondDot < 0 || indexOf(bytes, secondDot + 1) >= 0) return null;
+        try {
+            return parsePayload(bytes, firstDot, secondDot, false);
+        } catch (IllegalArgumentException | ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    private static JwtClaims parsePayload(byte[] token, int firstDot, int secondDot, boolean requireExp) {
+        ByteBuffer decoded = DECODER.decode(ByteBuffer.wrap(token, firstDot + 1, secondDot - firstDot - 1));
+        PayloadReader reader = new PayloadReader(decoded.array(), decoded.arrayOffset() + decoded.position(),
+                decoded.arrayOffset() + decoded.limit());
+        return reader.read(requireExp);
+    }
+
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '.') return i;
+        }
+        return -1;
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, ByteBuffer provided) {
+        if (provided.remaining() != SIGNATURE_LENGTH) return false;
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            diff |= expected[i] ^ provided.get(provided.position() + i);
+        }
+        return diff == 0;
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No fue posible inicializar " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Lector mínimo de un objeto JSON plano. Conoce los claims que emite {@link JwtCodec}
+     * e ignora cualquier otro valor (incluidos objetos y arreglos anidados).
+     */
+    private static final class PayloadReader {
+
+        private final byte[] buf;
+        private final int end;
+        private int pos;
+
+        PayloadReader(byte[] buf, int start, int end) {
+            this.buf = buf;
+            this.pos = start;
+            this.end = end;
+        }
+
+        JwtClaims read(boolean requireExp) {
+            String sub = null;
+            String uid = null;
+            List<String> roles = null;
+            Boolean activo = null;
+            long iat = 0;
+            long exp = 0;
+            boolean hasExp = false;
+
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    expect('"');
+                    int keyStart = pos;
+                    int keyEnd = skipStringBody();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    if (keyEquals(keyStart, keyEnd, KEY_SUB)) {
+                        sub = readNullableString();
+                    } else if (keyEquals(keyStart, keyEnd, KEY_IAT)) {
+                        iat = readLong();
+                    } else if (keyEquals(keyStart, keyEnd, KEY_EXP)) {
+                        exp = readLong();
+                        hasExp = true;
+                    } else if (keyEquals(keyStart, keyEnd, KEY_UID)) {
+                        uid = readNullableString();
+                    } else if (keyEquals(keyStart, keyEnd, KEY_ROLES)) {
+                        roles = readStringArray();
+                    } else if (keyEquals(keyStart, keyEnd, KEY_ACTIVO)) {
+                        activo = readBoolean();
+                    } else {
+                        skipValue();
+                    }
+                    skipWhitespace();
+                    byte b = next();
+                    if (b == '}') break;
+                    if (b != ',') throw malformed();
+                }
+            }
+            skipWhitespace();
+            if (pos != end) throw malformed();
+            if (requireExp && !hasExp) return null;
+            return new JwtClaims(sub, uid, roles, activo, iat, exp);
+        }
+
+        private boolean keyEquals(int start, int stop, byte[] key) {
+            if (stop - start != key.length) return false;
+            for (int i = 0; i < key.length; i++) {
+                if (buf[start + i] != key[i]) return false;
+            }
+            return true;
+        }
+
+        private String readNullableString() {
+            if (peek() == 'n') {
+                expectLiteral("null");
+                return null;
+            }
+            expect('"');
+            int start = pos;
+            boolean ascii = true;
+            while (pos < end) {
+                byte b = buf[pos];
+                if (b == '"') {
+                    String value = new String(buf, start, pos - start,
+                            ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+                    pos++;
+                    return value;
+                }
+                if (b == '\\') {
+                    pos = start;
+                    return readEscapedString();
+                }
+                if (b < 0) ascii = false;
+                pos++;
+            }
+            throw malformed();
+        }
+
+        private List<String> readStringArray() {
+            expect('[');
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return List.of();
+            }
+            List<String> values = new ArrayList<>(2);
+            while (true) {
+                skipWhitespace();
+                String value = readNullableString();
+                if (value == null) throw malformed();
+                values.add(value);
+                skipWhitespace();
+                byte b = next();
+                if (b == ']') return List.copyOf(values);
+                if (b != ',') throw malformed();
+            }
+        }
+
+        private Boolean readBoolean() {
+            if (peek() == 't') {
+                expectLiteral("true");
+                return Boolean.TRUE;
+            }
+            expectLiteral("false");
+            return Boolean.FALSE;
+        }
+
+        private String readEscapedString() {
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            while (pos < end) {
+                byte b = buf[pos++];
+                if (b == '"') {
+                    return out.toString(StandardCharsets.UTF_8);
+                }
+                if (b != '\\') {
+                    out.write(b);
+                    continue;
+                }
+                byte e = next();
+                switch (e) {
+                    case '"', '\\', '/' -> out.write(e);
+                    case 'b' -> out.write('\b');
+                    case 'f' -> out.write('\f');
+                    case 'n' -> out.write('\n');
+                    case 'r' -> out.write('\r');
+                    case 't' -> out.write('\t');
+                    case 'u' -> {
+                        if (end - pos < 4) throw malformed();
+                        char c = (char) Integer.parseInt(new String(buf, pos, 4, StandardCharsets.US_ASCII), 16);
+                        pos += 4;
+                        if (Character.isHighSurrogate(c) && end - pos >= 6 && buf[pos] == '\\' && buf[pos + 1] == 'u') {
+                            char low = (char) Integer.parseInt(new String(buf, pos + 2, 4, StandardCharsets.US_ASCII), 16);
+                            pos += 6;
+                            out.writeBytes(new String(new char[] {c, low}).getBytes(StandardCharsets.UTF_8));
+                        } else {
+                            out.writeBytes(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                    default -> throw malformed();
+                }
+            }
+            throw malformed();
+        }
+
+        private long readLong() {
+            boolean negative = false;
+            if (peek() == '-') {
+                negative = true;
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+                value = Math.addExact(Math.multiplyExact(value, 10), buf[pos] - '0');
+                pos++;
+            }
+            if (pos == start) throw malformed();
+            return negative ? -value : value;
+        }
+
+        private void skipValue() {
+            byte b = peek();
+            switch (b) {
+                case '"' -> {
+                    pos++;
+                    skipStringBody();
+                }
+                case '{', '[' -> skipContainer();
+                case 't' -> expectLiteral("true");
+                case 'f' -> expectLiteral("false");
+                case 'n' -> expectLiteral("null");
+                default -> {
+                    int start = pos;
+                    while (pos < end && isNumberChar(buf[pos])) pos++;
+                    if (pos == start) throw malformed();
+                }
+            }
+        }
+
+        private void skipContainer() {
+            int depth = 0;
+            while (pos < end) {
+                byte b = buf[pos++];
+                if (b == '"') {
+                    skipStringBody();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) return;
+                }
+            }
+            throw malformed();
+        }
+
+        /** Avanza hasta después de la comilla de cierre y devuelve la posición de dicha comilla. */
+        private int skipStringBody() {
+            while (pos < end) {
+                byte b = buf[pos++];
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    return pos - 1;
+                }
+            }
+            throw malformed();
+        }
+
+        private void expectLiteral(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (next() != literal.charAt(i)) throw malformed();
+            }
+        }
+
+        private void expect(char c) {
+            if (next() != c) throw malformed();
+        }
+
+        private byte next() {
+            if (pos >= end) throw malformed();
+            return buf[pos++];
+        }
+
+        private byte peek() {
+            if (pos >= end) throw malformed();
+            return buf[pos];
+        }
+
+        private void skipWhitespace() {
+            while (pos < end && (buf[pos] == ' ' || buf[pos] == '\t' || buf[pos] == '\n' || buf[pos] == '\r')) {
+                pos++;
+            }
+        }
+
+        private static boolean isNumberChar(byte b) {
+            return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+        }
+
+        private static IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Payload JWT mal formado");
+        }
+    }
+}
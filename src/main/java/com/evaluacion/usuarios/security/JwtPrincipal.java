@@ -0,0 +1,14 @@
+package com.evaluacion.usuarios.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal construido únicamente a partir de los claims de un token verificado.
+ */
+public record JwtPrincipal(String userId, String correo) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return correo;
+    }
+}
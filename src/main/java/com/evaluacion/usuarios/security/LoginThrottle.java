@@ -0,0 +1,223 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita los intentos de login por correo y por IP antes de consultar la base de datos o
+ * calcular un hash, para que el tráfico de credential stuffing no se convierta en CPU de BCrypt.
+ * <p>
+ * Cada clave tiene un token bucket sin locks (CAS sobre un estado inmutable) y, tras
+ * {@code free-failures} fallos consecutivos, un bloqueo con backoff exponencial. Los buckets
+ * viven en cachés Caffeine acotadas que los descartan tras {@code expire-after} sin uso.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final String MENSAJE = "Demasiados intentos de login, intente nuevamente más tarde";
+
+    private final boolean enabled;
+    private final Limits correoLimits;
+    private final Limits ipLimits;
+    private final int freeFailures;
+    private final long backoffBaseNanos;
+    private final long backoffMaxNanos;
+    private final LongSupplier clock;
+    private final Cache<String, Bucket> porCorreo;
+    private final Cache<String, Bucket> porIp;
+    private final Counter attempts;
+    private final Counter failures;
+    private final Counter correoHits;
+    private final Counter ipHits;
+
+    /** Capacidad de la ráfaga y tokens repuestos por minuto. */
+    record Limits(int capacity, double refillPerMinute) {
+
+        double refillPerNano() {
+            return refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        }
+    }
+
+    @Autowired
+    public LoginThrottle(@Value("${security.login.throttle.enabled:true}") boolean enabled,
+                         @Value("${security.login.throttle.correo.capacity:5}") int correoCapacity,
+                         @Value("${security.login.throttle.correo.refill-per-minute:5}") double correoRefill,
+                         @Value("${security.login.throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${security.login.throttle.ip.refill-per-minute:60}") double ipRefill,
+                         @Value("${security.login.throttle.free-failures:3}") int freeFailures,
+                         @Value("${security.login.throttle.backoff-base:PT1S}") Duration backoffBase,
+                         @Value("${security.login.throttle.backoff-max:PT15M}") Duration backoffMax,
+                         @Value("${security.login.throttle.maximum-keys:100000}") long maximumKeys,
+                         @Value("${security.login.throttle.expire-after:PT30M}") Duration expireAfter,
+                         MeterRegistry meterRegistry) {
+        this(enabled, new Limits(correoCapacity, correoRefill), new Limits(ipCapacity, ipRefill), freeFailures,
+                backoffBase, backoffMax, maximumKeys, expireAfter, meterRegistry, System::nanoTime);
+    }
+
+    LoginThrottle(boolean enabled, Limits correoLimits, Limits ipLimits, int freeFailures,
+                  Duration backoffBase, Duration backoffMax, long maximumKeys, Duration expireAfter,
+                  MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.correoLimits = correoLimits;
+        this.ipLimits = ipLimits;
+        this.freeFailures = freeFailures;
+        this.backoffBaseNanos = backoffBase.toNanos();
+        this.backoffMaxNanos = backoffMax.toNanos();
+        this.clock = clock;
+        this.porCorreo = newCache(maximumKeys, expireAfter, clock);
+        this.porIp = newCache(maximumKeys, expireAfter, clock);
+        this.attempts = Counter.builder("auth.login.attempts")
+                .description("Intentos de login recibidos")
+                .register(meterRegistry);
+        this.failures = Counter.builder("auth.login.failures")
+                .description("Intentos de login con credenciales inválidas")
+                .register(meterRegistry);
+        this.correoHits = Counter.builder("rate.limit.hits").tag("key", "correo")
+                .description("Intentos de login rechazados por rate limiting")
+                .register(meterRegistry);
+        this.ipHits = Counter.builder("rate.limit.hits").tag("key", "ip")
+                .description("Intentos de login rechazados por rate limiting")
+                .register(meterRegistry);
+    }
+
+    private static Cache<String, Bucket> newCache(long maximumKeys, Duration expireAfter, LongSupplier clock) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(expireAfter)
+                .ticker(clock::getAsLong)
+                .build();
+    }
+
+    /**
+     * Consume un intento para el correo y la IP.
+     *
+     * @throws TooManyRequestsException si alguna de las dos claves está bloqueada o sin tokens
+     */
+    public void acquire(String correo, String ip) {
+        attempts.increment();
+        if (!enabled) return;
+        long now = clock.getAsLong();
+        Bucket correoBucket = porCorreo.get(normalize(correo), k -> new Bucket(correoLimits.capacity(), now));
+        Bucket ipBucket = ip != null ? porIp.get(ip, k -> new Bucket(ipLimits.capacity(), now)) : null;
+
+        long wait = correoBucket.tryConsume(correoLimits, now);
+        if (wait > 0) {
+            correoHits.increment();
+            throw rejected(wait);
+        }
+        if (ipBucket != null) {
+            wait = ipBucket.tryConsume(ipLimits, now);
+            if (wait > 0) {
+                ipHits.increment();
+                throw rejected(wait);
+            }
+        }
+    }
+
+    /** Registra credenciales inválidas; tras {@code free-failures} fallos seguidos la clave queda bloqueada. */
+    public void onFailure(String correo, String ip) {
+        failures.increment();
+        if (!enabled) return;
+        long now = clock.getAsLong();
+        porCorreo.get(normalize(correo), k -> new Bucket(correoLimits.capacity(), now)).fail(now);
+        if (ip != null) {
+            porIp.get(ip, k -> new Bucket(ipLimits.capacity(), now)).fail(now);
+        }
+    }
+
+    /** Un login correcto reinicia el backoff del correo; el de la IP solo decae con el tiempo. */
+    public void onSuccess(String correo) {
+        if (!enabled) return;
+        Bucket bucket = porCorreo.getIfPresent(normalize(correo));
+        if (bucket != null) {
+            bucket.resetFailures();
+        }
+    }
+
+    long trackedKeys() {
+        porCorreo.cleanUp();
+        porIp.cleanUp();
+        return porCorreo.estimatedSize() + porIp.estimatedSize();
+    }
+
+    private static String normalize(String correo) {
+        return correo == null ? "" : correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static TooManyRequestsException rejected(long waitNanos) {
+        return new TooManyRequestsException(MENSAJE, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+    }
+
+    private long backoffNanos(int consecutiveFailures) {
+        int exponent = consecutiveFailures - freeFailures - 1;
+        if (exponent < 0) return 0;
+        if (exponent >= 62 || backoffBaseNanos << exponent >>> exponent != backoffBaseNanos) return backoffMaxNanos;
+        return Math.min(backoffMaxNanos, backoffBaseNanos << exponent);
+    }
+
+    private record State(double tokens, long updatedAt, int failures, long blockedUntil, long lastFailure) {
+    }
+
+    /** Token bucket con backoff; todas las transiciones son CAS sobre un {@link State} inmutable. */
+    private final class Bucket {
+
+        private final AtomicReference<State> state;
+
+        Bucket(int capacity, long now) {
+            this.state = new AtomicReference<>(new State(capacity, now, 0, now, now));
+        }
+
+        /** @return 0 si se concedió el intento, si no los nanosegundos a esperar */
+        long tryConsume(Limits limits, long now) {
+            while (true) {
+                State s = state.get();
+                if (s.blockedUntil() - now > 0) {
+                    return s.blockedUntil() - now;
+                }
+                double tokens = Math.min(limits.capacity(),
+                        s.tokens() + Math.max(0, now - s.updatedAt()) * limits.refillPerNano());
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / limits.refillPerNano());
+                }
+                if (state.compareAndSet(s, new State(tokens - 1, now, s.failures(), s.blockedUntil(), s.lastFailure()))) {
+                    return 0;
+                }
+            }
+        }
+
+        void fail(long now) {
+            while (true) {
+                State s = state.get();
+                // Los fallos se olvidan tras backoff-max sin fallar; si no, una IP compartida acumularía bloqueos.
+                int previos = now - s.lastFailure() > backoffMaxNanos ? 0 : s.failures();
+                int fallos = previos == Integer.MAX_VALUE ? previos : previos + 1;
+                long backoff = backoffNanos(fallos);
+                long blockedUntil = backoff > 0 ? now + backoff : s.blockedUntil();
+                if (state.compareAndSet(s, new State(s.tokens(), s.updatedAt(), fallos, blockedUntil, now))) {
+                    return;
+                }
+            }
+        }
+
+        void resetFailures() {
+            while (true) {
+                State s = state.get();
+                if (s.failures() == 0 || state.compareAndSet(s, new State(s.tokens(), s.updatedAt(), 0, s.blockedUntil(), s.lastFailure()))) {
+                    return;
+                }
+            }
+        }
+    }
+}
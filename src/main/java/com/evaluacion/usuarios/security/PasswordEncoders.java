@@ -0,0 +1,154 @@
+package com.evaluacion.usuarios.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Construye el {@link DelegatingPasswordEncoder} de la aplicación: los hashes nuevos se
+ * generan con el algoritmo configurado y se prefijan con su id ({@code {bcrypt}}, {@code {argon2}},
+ * {@code {pbkdf2}}); los existentes se verifican con el algoritmo de su prefijo.
+ * Los hashes BCrypt sin prefijo (anteriores a este cambio) se siguen aceptando, y en ambos casos
+ * {@code upgradeEncoding} indica que conviene regenerarlos en el próximo login.
+ */
+public final class PasswordEncoders {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoders.class);
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+    private static final String CALIBRATION_PASSWORD = "Calibracion1A";
+
+    /** Parámetros de los algoritmos soportados; {@code algorithm} decide cuál se usa para hashes nuevos. */
+    public record Settings(String algorithm,
+                           int bcryptStrength,
+                           int argon2SaltLength, int argon2HashLength, int argon2Parallelism,
+                           int argon2MemoryKib, int argon2Iterations,
+                           int pbkdf2Iterations) {
+
+        Settings withBcryptStrength(int strength) {
+            return new Settings(algorithm, strength, argon2SaltLength, argon2HashLength, argon2Parallelism,
+                    argon2MemoryKib, argon2Iterations, pbkdf2Iterations);
+        }
+
+        Settings withArgon2Iterations(int iterations) {
+            return new Settings(algorithm, bcryptStrength, argon2SaltLength, argon2HashLength, argon2Parallelism,
+                    argon2MemoryKib, iterations, pbkdf2Iterations);
+        }
+
+        Settings withPbkdf2Iterations(int iterations) {
+            return new Settings(algorithm, bcryptStrength, argon2SaltLength, argon2HashLength, argon2Parallelism,
+                    argon2MemoryKib, argon2Iterations, iterations);
+        }
+    }
+
+    private PasswordEncoders() {
+    }
+
+    @SuppressWarnings("deprecation")
+    public static PasswordEncoder delegating(Settings settings) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = bcrypt(settings.bcryptStrength());
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", argon2(settings, settings.argon2Iterations()));
+        encoders.put("pbkdf2", pbkdf2(settings.pbkdf2Iterations()));
+        // Solo para verificar datos sembrados en texto plano ({noop}); nunca se usa para codificar.
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        if (!encoders.containsKey(settings.algorithm()) || "noop".equals(settings.algorithm())) {
+            throw new IllegalArgumentException("Algoritmo de hashing no soportado: " + settings.algorithm());
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(settings.algorithm(), encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new UnprefixedBcrypt(bcrypt));
+        return delegating;
+    }
+
+    /**
+     * Ajusta el costo del algoritmo configurado al mayor valor cuyo hash no supera
+     * {@code targetLatency} en el hardware actual (sin bajar de los mínimos indicados).
+     */
+    public static Settings calibrate(Settings settings, Duration targetLatency, int minBcryptStrength, int minPbkdf2Iterations) {
+        long target = targetLatency.toNanos();
+        Settings calibrated = switch (settings.algorithm()) {
+            case "bcrypt" -> settings.withBcryptStrength(calibrateBcrypt(target, minBcryptStrength));
+            case "argon2" -> settings.withArgon2Iterations(
+                    calibrateLinear(target, 1, i -> argon2(settings, i)));
+            case "pbkdf2" -> settings.withPbkdf2Iterations(
+                    calibrateLinear(target, minPbkdf2Iterations, PasswordEncoders::pbkdf2));
+            default -> settings;
+        };
+        log.info("Password hashing calibrated for {} ms: algorithm={} bcryptStrength={} argon2Iterations={} pbkdf2Iterations={}",
+                targetLatency.toMillis(), calibrated.algorithm(), calibrated.bcryptStrength(),
+                calibrated.argon2Iterations(), calibrated.pbkdf2Iterations());
+        return calibrated;
+    }
+
+    /** Cada punto de costo de BCrypt duplica el tiempo: se sube mientras el siguiente paso entre en el objetivo. */
+    private static int calibrateBcrypt(long targetNanos, int minStrength) {
+        int strength = Math.max(4, minStrength);
+        long elapsed = measure(bcrypt(strength));
+        while (strength < 31 && elapsed * 2 <= targetNanos) {
+            strength++;
+            elapsed = measure(bcrypt(strength));
+        }
+        return strength;
+    }
+
+    /** Para costos lineales (iteraciones) se mide un punto de partida y se escala proporcionalmente. */
+    private static int calibrateLinear(long targetNanos, int start, IntFunction<PasswordEncoder> factory) {
+        long elapsed = Math.max(1, measure(factory.apply(start)));
+        long scaled = (long) start * targetNanos / elapsed;
+        return (int) Math.max(start, Math.min(Integer.MAX_VALUE, scaled));
+    }
+
+    private static long measure(PasswordEncoder encoder) {
+        encoder.encode(CALIBRATION_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static BCryptPasswordEncoder bcrypt(int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    private static Argon2PasswordEncoder argon2(Settings s, int iterations) {
+        return new Argon2PasswordEncoder(s.argon2SaltLength(), s.argon2HashLength(), s.argon2Parallelism(),
+                s.argon2MemoryKib(), iterations);
+    }
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    /** Verifica hashes BCrypt guardados sin prefijo; cualquier otro valor sin prefijo se rechaza. */
+    private record UnprefixedBcrypt(BCryptPasswordEncoder bcrypt) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            throw new UnsupportedOperationException("Solo para verificar hashes heredados");
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword != null && encodedPassword != null
+                    && BCRYPT_HASH.matcher(encodedPassword).matches()
+                    && bcrypt.matches(rawPassword, encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.exception.PasswordInvalidException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Política de contraseñas compilada una sola vez desde {@code security.password.*}.
+ * <p>
+ * Las reglas por defecto (largo mínimo, mayúscula, minúscula, dígito y alfabeto permitido) se
+ * verifican en una sola pasada sobre los caracteres con una tabla ASCII. Solo si se configura
+ * {@code security.password.regex} se usa un {@link Pattern}, compilado en el constructor.
+ */
+@Component
+public class PasswordPolicy {
+
+    /** Regex que la aplicación traía por defecto; equivalen a las reglas integradas. */
+    private static final Set<String> REGEX_INTEGRADAS = Set.of(
+            "^(?=.{8,}$)(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)[A-Za-z0-9.@_/!*&#$%^(){}\\[\\]:-]{8,}$",
+            "^(?=.{8,}$)(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)[A-Za-z0-9.\\-@_/!*&#$%^(){}\\[\\]:]{8,}$");
+
+    private static final String ESPECIALES_POR_DEFECTO = ".-@_/!*&#$%^(){}[]:";
+
+    public enum Regla {
+        LONGITUD,
+        CARACTER_NO_PERMITIDO,
+        MAYUSCULA,
+        MINUSCULA,
+        DIGITO,
+        PATRON
+    }
+
+    private final int minLength;
+    private final boolean requireUppercase;
+    private final boolean requireLowercase;
+    private final boolean requireDigit;
+    private final boolean[] permitidos = new boolean[128];
+    private final Pattern pattern;
+    private final String patternMessage;
+    private final Map<Regla, Counter> failures = new EnumMap<>(Regla.class);
+
+    public PasswordPolicy(@Value("${security.password.regex:}") String regex,
+                          @Value("${security.password.min-length:8}") int minLength,
+                          @Value("${security.password.require-uppercase:true}") boolean requireUppercase,
+                          @Value("${security.password.require-lowercase:true}") boolean requireLowercase,
+                          @Value("${security.password.require-digit:true}") boolean requireDigit,
+                          @Value("${security.password.allowed-special:" + ESPECIALES_POR_DEFECTO + "}") String allowedSpecial,
+                          @Value("${security.password.message:La contraseña no cumple el patrón requerido}") String message,
+                          MeterRegistry meterRegistry) {
+        boolean personalizada = regex != null && !regex.isBlank() && !REGEX_INTEGRADAS.contains(regex);
+        this.pattern = personalizada ? Pattern.compile(regex) : null;
+        this.patternMessage = message != null && !message.isBlank() ? message : "La contraseña no cumple el patrón requerido";
+        this.minLength = minLength;
+        this.requireUppercase = requireUppercase;
+        this.requireLowercase = requireLowercase;
+        this.requireDigit = requireDigit;
+        for (char c = 'A'; c <= 'Z'; c++) permitidos[c] = true;
+        for (char c = 'a'; c <= 'z'; c++) permitidos[c] = true;
+        for (char c = '0'; c <= '9'; c++) permitidos[c] = true;
+        for (char c : allowedSpecial.toCharArray()) {
+            if (c >= 128) {
+                throw new IllegalArgumentException("security.password.allowed-special solo admite caracteres ASCII: " + c);
+            }
+            permitidos[c] = true;
+        }
+        for (Regla regla : Regla.values()) {
+            failures.put(regla, Counter.builder("password.validation.failures")
+                    .tag("regla", regla.name().toLowerCase(Locale.ROOT))
+                    .description("Errores de validación de contraseña")
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Política con las reglas por defecto, para tests y benchmarks. */
+    public static PasswordPolicy defaults(MeterRegistry meterRegistry) {
+        return new PasswordPolicy("", 8, true, true, true, ESPECIALES_POR_DEFECTO, null, meterRegistry);
+    }
+
+    /**
+     * @throws PasswordInvalidException con el mensaje de la primera regla que no se cumple
+     */
+    public void validate(String password) {
+        Optional<Regla> violacion = violation(password);
+        if (violacion.isPresent()) {
+            failures.get(violacion.get()).increment();
+            throw new PasswordInvalidException(message(violacion.get()));
+        }
+    }
+
+    /** @return la primera regla que la contraseña no cumple, o vacío si es válida */
+    public Optional<Regla> violation(String password) {
+        if (pattern != null) {
+            return pattern.matcher(password).matches() ? Optional.empty() : Optional.of(Regla.PATRON);
+        }
+        boolean mayuscula = false;
+        boolean minuscula = false;
+        boolean digito = false;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (c >= 128 || !permitidos[c]) {
+                return Optional.of(Regla.CARACTER_NO_PERMITIDO);
+            }
+            mayuscula |= c >= 'A' && c <= 'Z';
+            minuscula |= c >= 'a' && c <= 'z';
+            digito |= c >= '0' && c <= '9';
+        }
+        if (password.length() < minLength) return Optional.of(Regla.LONGITUD);
+        if (requireUppercase && !mayuscula) return Optional.of(Regla.MAYUSCULA);
+        if (requireLowercase && !minuscula) return Optional.of(Regla.MINUSCULA);
+        if (requireDigit && !digito) return Optional.of(Regla.DIGITO);
+        return Optional.empty();
+    }
+
+    private String message(Regla regla) {
+        return switch (regla) {
+            case LONGITUD -> "La contraseña debe tener al menos " + minLength + " caracteres";
+            case CARACTER_NO_PERMITIDO -> "La contraseña contiene caracteres no permitidos";
+            case MAYUSCULA -> "La contraseña debe tener al menos una mayúscula";
+            case MINUSCULA -> "La contraseña debe tener al menos una minúscula";
+            case DIGITO -> "La contraseña debe tener al menos un dígito";
+            case PATRON -> patternMessage;
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.util.BloomFilter;
+
+/**
+ * Conjunto en memoria de tokens revocados.
+ * <p>
+ * Cada token se identifica por los primeros 128 bits de su firma HMAC, que ya es
+ * única por token y se obtiene sin volver a hashear. Un filtro de Bloom responde la
+ * consulta habitual (token no revocado) sin bloqueo; solo sus positivos se confirman
+ * contra una tabla exacta de direccionamiento abierto sobre {@code long[]}
+ * (id alto, id bajo, expiración), mucho más compacta que un {@code Set} de objetos.
+ */
+public class RevokedTokenSet {
+
+    /** Caracteres base64url necesarios para 128 bits de firma. */
+    static final int ID_CHARS = 22;
+
+    private static final int SLOT = 3;
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        java.util.Arrays.fill(BASE64URL, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter bloom;
+    private long[] table;
+    private int size;
+
+    public RevokedTokenSet(long expectedRevocations, double falsePositiveRate) {
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloom = new BloomFilter(expectedRevocations, falsePositiveRate);
+        this.table = new long[1024 * SLOT];
+    }
+
+    public record TokenId(long hi, long lo) {
+    }
+
+    /**
+     * Identificador de un token: los primeros 22 caracteres de su firma, o {@code null}
+     * si el token no tiene forma de JWT firmado.
+     */
+    public static TokenId idOf(String token) {
+        if (token == null) return null;
+        int lastDot = token.lastIndexOf('.');
+        if (lastDot < 0) return null;
+        return idOfSignature(token, lastDot + 1);
+    }
+
+    /** Prefijo de firma que se persiste como clave del token revocado. */
+    public static String signaturePrefix(String token) {
+        if (token == null) return null;
+        int lastDot = token.lastIndexOf('.');
+        if (lastDot < 0 || token.length() - lastDot - 1 < ID_CHARS) return null;
+        return token.substring(lastDot + 1, lastDot + 1 + ID_CHARS);
+    }
+
+    static TokenId idOfSignature(String s, int offset) {
+        if (s.length() - offset < ID_CHARS) return null;
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < ID_CHARS; i++) {
+            char c = s.charAt(offset + i);
+            int v = c < 128 ? BASE64URL[c] : -1;
+            if (v < 0) return null;
+            // 21 caracteres completos (126 bits) + los 2 bits altos del último = 128 bits.
+            int bits = i < ID_CHARS - 1 ? 6 : 2;
+            int value = i < ID_CHARS - 1 ? v : v >>> 4;
+            hi = (hi << bits) | (lo >>> (64 - bits));
+            lo = (lo << bits) | value;
+        }
+        return new TokenId(hi, lo);
+    }
+
+    public synchronized void add(TokenId id, long expiresAt) {
+        if ((size + 1) * 2L > table.length / SLOT) {
+            resize(table.length / SLOT * 2);
+        }
+        if (insert(table, id.hi(), id.lo(), expiresAt)) {
+            size++;
+        }
+        bloom.put(id.hi(), id.lo());
+    }
+
+    /** Consulta solo el filtro de Bloom: {@code false} es definitivo, {@code true} puede ser falso positivo. */
+    public boolean mightContain(TokenId id) {
+        return id != null && bloom.mightContain(id.hi(), id.lo());
+    }
+
+    public boolean contains(TokenId id) {
+        if (id == null || !bloom.mightContain(id.hi(), id.lo())) {
+            return false;
+        }
+        synchronized (this) {
+            return find(table, id.hi(), id.lo()) >= 0;
+        }
+    }
+
+    /**
+     * Elimina entradas cuyo token ya expiró y reconstruye el filtro de Bloom con las vigentes.
+     *
+     * @return cantidad de entradas eliminadas
+     */
+    public synchronized int purgeExpired(long nowMillis) {
+        int capacity = table.length / SLOT;
+        long[] retained = new long[table.length];
+        int kept = 0;
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, size * 2L), falsePositiveRate);
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slot * SLOT;
+            long hi = table[base];
+            long lo = table[base + 1];
+            if ((hi | lo) == 0) continue;
+            long exp = table[base + 2];
+            if (exp < nowMillis) continue;
+            insert(retained, hi, lo, exp);
+            rebuilt.put(hi, lo);
+            kept++;
+        }
+        int removed = size - kept;
+        table = retained;
+        size = kept;
+        bloom = rebuilt;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public double bloomFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public synchronized long estimatedMemoryBytes() {
+        return bloom.estimatedMemoryBytes() + (long) table.length * Long.BYTES;
+    }
+
+    private void resize(int newCapacity) {
+        long[] bigger = new long[newCapacity * SLOT];
+        int capacity = table.length / SLOT;
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slot * SLOT;
+            if ((table[base] | table[base + 1]) != 0) {
+                insert(bigger, table[base], table[base + 1], table[base + 2]);
+            }
+        }
+        table = bigger;
+    }
+
+    private static boolean insert(long[] t, long hi, long lo, long exp) {
+        if ((hi | lo) == 0) lo = 1;
+        int mask = t.length / SLOT - 1;
+        int slot = (int) mix(hi, lo) & mask;
+        while (true) {
+            int base = slot * SLOT;
+            if ((t[base] | t[base + 1]) == 0) {
+                t[base] = hi;
+                t[base + 1] = lo;
+                t[base + 2] = exp;
+                return true;
+            }
+            if (t[base] == hi && t[base + 1] == lo) {
+                t[base + 2] = Math.max(t[base + 2], exp);
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int find(long[] t, long hi, long lo) {
+        if ((hi | lo) == 0) lo = 1;
+        int mask = t.length / SLOT - 1;
+        int slot = (int) mix(hi, lo) & mask;
+        while (true) {
+            int base = slot * SLOT;
+            if ((t[base] | t[base + 1]) == 0) return -1;
+            if (t[base] == hi && t[base + 1] == lo) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static long mix(long hi, long lo) {
+        long h = hi ^ Long.rotateLeft(lo, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,148 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.model.TokenRevocado;
+import com.evaluacion.usuarios.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Índice de tokens revocados respaldado por la tabla {@code tokens_revocados}.
+ * Cuando los servicios rotan o eliminan {@code Usuario.token}, el token anterior se
+ * persiste aquí y se agrega a un {@link RevokedTokenSet} en memoria que el filtro JWT
+ * consulta en cada request sin ir a base de datos.
+ */
+@Component
+public class TokenRevocationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationIndex.class);
+
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final long expirationMs;
+    private final RevokedTokenSet revoked;
+
+    public TokenRevocationIndex(TokenRevocadoRepository tokenRevocadoRepository,
+                                JwtUtil jwtUtil,
+                                MeterRegistry meterRegistry,
+                                @Value("${jwt.revocation.enabled:true}") boolean enabled,
+                                @Value("${jwt.revocation.expected-revocations:1000000}") long expectedRevocations,
+                                @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${jwt.expiration-ms:3600000}") long expirationMs) {
+        this.tokenRevocadoRepository = tokenRevocadoRepository;
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.expirationMs = expirationMs;
+        this.revoked = new RevokedTokenSet(expectedRevocations, falsePositiveRate);
+        Gauge.builder("jwt.revocations.size", revoked, RevokedTokenSet::size)
+                .description("Tokens revocados vigentes en el índice en memoria")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        if (!enabled) return;
+        LocalDateTime ahora = LocalDateTime.now();
+        String ultimaFirma = "";
+        int cargados = 0;
+        while (true) {
+            List<TokenRevocado> pagina = tokenRevocadoRepository
+                    .findTop5000ByExpiraAfterAndFirmaGreaterThanOrderByFirma(ahora, ultimaFirma);
+            for (TokenRevocado t : pagina) {
+                RevokedTokenSet.TokenId id = RevokedTokenSet.idOfSignature(t.getFirma(), 0);
+                if (id != null) {
+                    revoked.add(id, toMillis(t.getExpira()));
+                    cargados++;
+                }
+            }
+            if (pagina.size() < 5000) break;
+            ultimaFirma = pagina.get(pagina.size() - 1).getFirma();
+        }
+        logger.info("TokenRevocationIndex - {} tokens revocados cargados", cargados);
+    }
+
+    public boolean isRevoked(String token) {
+        return enabled && revoked.contains(RevokedTokenSet.idOf(token));
+    }
+
+    /**
+     * Revoca un token emitido previamente. Se persiste en la transacción actual (si existe)
+     * y se publica en memoria tras el commit.
+     */
+    public void revoke(String token) {
+        Revocacion revocacion = prepare(token);
+        if (revocacion == null) return;
+
+        tokenRevocadoRepository.save(revocacion.fila());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revoked.add(revocacion.id(), revocacion.expiresAt());
+                }
+            });
+        } else {
+            revoked.add(revocacion.id(), revocacion.expiresAt());
+        }
+    }
+
+    /**
+     * Revoca un token solo en memoria, de inmediato, y devuelve la fila que el llamador debe
+     * persistir (lo hace {@code LoginWriteBehind} en su volcado). Hasta entonces, un reinicio lo
+     * olvida, igual que el login pendiente que lo reemplazó.
+     *
+     * @return la fila de {@code tokens_revocados}, o {@code null} si no hace falta revocarlo
+     */
+    public TokenRevocado revokeInMemory(String token) {
+        Revocacion revocacion = prepare(token);
+        if (revocacion == null) return null;
+        revoked.add(revocacion.id(), revocacion.expiresAt());
+        return revocacion.fila();
+    }
+
+    private record Revocacion(TokenRevocado fila, RevokedTokenSet.TokenId id, long expiresAt) {
+    }
+
+    /** {@code null} si la revocación está deshabilitada, el token no es válido o ya venció. */
+    private Revocacion prepare(String token) {
+        if (!enabled) return null;
+        String firma = RevokedTokenSet.signaturePrefix(token);
+        RevokedTokenSet.TokenId id = RevokedTokenSet.idOf(token);
+        if (firma == null || id == null) return null;
+
+        JwtClaims claims = jwtUtil.parseUnverified(token);
+        long expiresAt = claims != null ? claims.expiresAt() : System.currentTimeMillis() + expirationMs;
+        if (expiresAt < System.currentTimeMillis()) return null;
+
+        TokenRevocado fila = new TokenRevocado(firma,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+        return new Revocacion(fila, id, expiresAt);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT10M}",
+               initialDelayString = "${jwt.revocation.purge-interval:PT10M}")
+    public void purgeExpired() {
+        if (!enabled) return;
+        int enMemoria = revoked.purgeExpired(System.currentTimeMillis());
+        int enTabla = tokenRevocadoRepository.deleteExpired(LocalDateTime.now());
+        logger.debug("TokenRevocationIndex - purga: {} en memoria, {} en tabla", enMemoria, enTabla);
+    }
+
+    private static long toMillis(LocalDateTime value) {
+        return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,87 @@
+package com.evaluacion.usuarios.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Caché acotada (tamaño y TTL) de los datos que {@link UsuarioDetailsService} necesita
+ * para construir el {@code UserDetails}, indexada por correo. Guarda un registro compacto
+ * en lugar de la entidad JPA para no retener teléfonos ni estado de Hibernate.
+ */
+@Component
+public class UsuarioDetailsCache {
+
+    static final String CACHE_NAME = "usuarios.details";
+
+    private final Cache<String, Entry> cache;
+
+    public UsuarioDetailsCache(@Value("${security.user-details-cache.enabled:true}") boolean enabled,
+                               @Value("${security.user-details-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${security.user-details-cache.ttl:PT5M}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Devuelve la entrada del correo desde la caché o la obtiene con {@code loader}.
+     * Si {@code loader} lanza una excepción (p. ej. usuario inexistente) no se guarda nada.
+     */
+    public Entry get(String correo, Function<String, Entry> loader) {
+        if (cache == null || correo == null) {
+            return loader.apply(correo);
+        }
+        return cache.get(correo, loader);
+    }
+
+    /**
+     * Invalida los correos indicados de inmediato y de nuevo tras el commit de la transacción
+     * en curso, para que una lectura concurrente no deje en caché datos previos al commit.
+     */
+    public void evict(String... correos) {
+        if (cache == null) return;
+        evictNow(correos);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(correos);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String... correos) {
+        for (String correo : correos) {
+            if (correo != null) {
+                cache.invalidate(correo);
+            }
+        }
+    }
+
+    long estimatedSize() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    /** Datos mínimos para autenticar: correo, hash de la contraseña, roles y estado. */
+    public record Entry(String correo, String hash, List<String> authorities, boolean activo) {
+    }
+}
@@ -15,18 +15,33 @@ import java.util.List;
 @Service
 public class UsuarioDetailsService implements UserDetailsService {
 
+    private static final List<String> DEFAULT_ROLES = List.of("ROLE_USER");
+
     private final UsuarioRepository usuarioRepository;
+    private final UsuarioDetailsCache usuarioDetailsCache;
 
-    public UsuarioDetailsService(UsuarioRepository usuarioRepository) {
+    public UsuarioDetailsService(UsuarioRepository usuarioRepository, UsuarioDetailsCache usuarioDetailsCache) {
         this.usuarioRepository = usuarioRepository;
+        this.usuarioDetailsCache = usuarioDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Usuario usuario = usuarioRepository.findByCorreo(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        UsuarioDetailsCache.Entry entry = usuarioDetailsCache.get(username, this::loadEntry);
+
+        List<GrantedAuthority> authorities = entry.authorities().stream()
+                .map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r))
+                .toList();
+        return new User(entry.correo(), entry.hash(), entry.activo(), true, true, true, authorities);
+    }
+
+    private UsuarioDetailsCache.Entry loadEntry(String correo) {
+        Usuario usuario = usuarioRepository.findByCorreo(correo)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + correo));
+        return new UsuarioDetailsCache.Entry(usuario.getCorreo(), usuario.getContrasena(), rolesOf(usuario), usuario.isActivo());
+    }
 
-        GrantedAuthority role = new SimpleGrantedAuthority("ROLE_USER");
-        return new User(usuario.getCorreo(), usuario.getContrasena(), List.of(role));
+    public static List<String> rolesOf(Usuario usuario) {
+        return DEFAULT_ROLES;
     }
 }
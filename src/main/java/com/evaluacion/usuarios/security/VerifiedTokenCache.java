@@ -0,0 +1,115 @@
+package com.evaluacion.usuarios.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caché acotada de tokens ya verificados, indexada por el SHA-256 del token.
+ * Un acierto evita el HMAC y el parseo del payload; cada entrada vive como máximo
+ * hasta el {@code exp} del token (o {@code jwt.cache.max-ttl}, lo que ocurra antes).
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String CACHE_NAME = "jwt.verified-tokens";
+
+    private final Cache<TokenDigest, JwtClaims> cache;
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(VerifiedTokenCache::newDigest);
+
+    public VerifiedTokenCache(@Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${jwt.cache.max-ttl:PT1H}") Duration maxTtl,
+                              MeterRegistry meterRegistry) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        long maxTtlNanos = maxTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<TokenDigest, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(TokenDigest key, JwtClaims claims, long currentTime) {
+                        long untilExp = TimeUnit.MILLISECONDS.toNanos(claims.expiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExp, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(TokenDigest key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(TokenDigest key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Devuelve los claims del token desde la caché o, si no están, los obtiene con
+     * {@code verifier} y los almacena. Los tokens inválidos ({@code null}) no se guardan.
+     */
+    public JwtClaims resolve(String token, Function<String, JwtClaims> verifier) {
+        if (cache == null || token == null || token.isEmpty()) {
+            return verifier.apply(token);
+        }
+        TokenDigest key = digest(token);
+        JwtClaims claims = cache.getIfPresent(key);
+        if (claims != null) {
+            if (!claims.isExpired(System.currentTimeMillis())) {
+                return claims;
+            }
+            cache.invalidate(key);
+            return null;
+        }
+        claims = verifier.apply(token);
+        if (claims != null) {
+            cache.put(key, claims);
+        }
+        return claims;
+    }
+
+    public void invalidate(String token) {
+        if (cache != null && token != null && !token.isEmpty()) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    long estimatedSize() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private TokenDigest digest(String token) {
+        MessageDigest md = digests.get();
+        ByteBuffer hash = ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.ISO_8859_1)));
+        return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record TokenDigest(long h0, long h1, long h2, long h3) {
+    }
+}
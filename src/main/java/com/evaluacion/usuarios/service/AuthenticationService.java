@@ -1,7 +1,14 @@
 package com.evaluacion.usuarios.service;
 
+import com.evaluacion.usuarios.exception.ServiceBusyException;
+import com.evaluacion.usuarios.model.Usuario;
 import com.evaluacion.usuarios.repository.UsuarioRepository;
 import com.evaluacion.usuarios.security.JwtUtil;
+import com.evaluacion.usuarios.security.LoginThrottle;
+import com.evaluacion.usuarios.security.TokenRevocationIndex;
+import com.evaluacion.usuarios.security.UsuarioDetailsCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -10,26 +17,92 @@ import java.time.LocalDateTime;
 @Service
 public class AuthenticationService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationService.class);
+
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final UsuarioDetailsCache usuarioDetailsCache;
+    private final LoginWriteBehind loginWriteBehind;
+    private final LoginThrottle loginThrottle;
+    private final CorreoIndex correoIndex;
 
-    public AuthenticationService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthenticationService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+                                 TokenRevocationIndex tokenRevocationIndex, UsuarioDetailsCache usuarioDetailsCache,
+                                 LoginWriteBehind loginWriteBehind, LoginThrottle loginThrottle, CorreoIndex correoIndex) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.usuarioDetailsCache = usuarioDetailsCache;
+        this.loginWriteBehind = loginWriteBehind;
+        this.loginThrottle = loginThrottle;
+        this.correoIndex = correoIndex;
     }
 
     public String login(String correo, String contrasena) {
-        var found = usuarioRepository.findByCorreo(correo);
+        return login(correo, contrasena, null);
+    }
+
+    /**
+     * Valida credenciales y emite un token. {@link LoginThrottle} decide antes de consultar la base
+     * de datos o calcular el hash, y lanza {@code TooManyRequestsException} si el correo o la IP
+     * superaron su límite.
+     *
+     * @param ip dirección del cliente, o {@code null} si no se conoce
+     */
+    public String login(String correo, String contrasena, String ip) {
+        loginThrottle.acquire(correo, ip);
+        var found = correoIndex.mightExist(correo)
+                ? usuarioRepository.findByCorreo(correo)
+                : java.util.Optional.<Usuario>empty();
         if (found.isPresent() && passwordEncoder.matches(contrasena, found.get().getContrasena())) {
+            loginThrottle.onSuccess(correo);
             var u = found.get();
-            u.setUltimoLogin(LocalDateTime.now());
-            String token = jwtUtil.generateToken(u.getCorreo());
-            u.setToken(token);
-            usuarioRepository.save(u);
+            boolean hashActualizado = upgradePasswordHash(u, contrasena);
+            LocalDateTime ahora = LocalDateTime.now();
+            String token = jwtUtil.generateToken(u);
+            String anterior = loginWriteBehind.isEnabled()
+                    ? loginWriteBehind.record(u.getId(), ahora, token, u.getToken())
+                    : u.getToken();
+            // En modo diferido solo se escribe ya si hay que guardar el nuevo hash. La escritura no
+            // pasa por la entidad: un merge compararía la versión y fallaría ante otro login simultáneo.
+            if (!loginWriteBehind.isEnabled() || hashActualizado) {
+                loginWriteBehind.writeNow(u.getId(), ahora, token, hashActualizado ? u.getContrasena() : null);
+            }
+            if (hashActualizado) {
+                usuarioDetailsCache.evict(u.getCorreo());
+            }
+            if (anterior != null && !anterior.equals(token)) {
+                if (loginWriteBehind.isEnabled()) {
+                    // Revocado en memoria ya; la fila se escribe con el volcado de los logins.
+                    loginWriteBehind.recordRevocation(tokenRevocationIndex.revokeInMemory(anterior));
+                } else {
+                    tokenRevocationIndex.revoke(anterior);
+                }
+            }
             return token;
         }
+        loginThrottle.onFailure(correo, ip);
         return null;
     }
+
+    /**
+     * Regenera el hash con el algoritmo y costo vigentes si el guardado es más débil
+     * (otro algoritmo, menor costo, BCrypt sin prefijo o texto plano sembrado).
+     * Si el pool de hashing está saturado se deja para el próximo login.
+     */
+    private boolean upgradePasswordHash(Usuario u, String contrasena) {
+        if (!passwordEncoder.upgradeEncoding(u.getContrasena())) {
+            return false;
+        }
+        try {
+            u.setContrasena(passwordEncoder.encode(contrasena));
+            return true;
+        } catch (ServiceBusyException e) {
+            log.debug("Password hash upgrade postponed for {}: hashing pool busy", u.getCorreo());
+            return false;
+        }
+    }
 }
@@ -0,0 +1,241 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice en memoria de los correos registrados, sobre un {@link BloomFilter}.
+ * Si responde que un correo no existe, la consulta {@code findByCorreo} se puede omitir:
+ * el filtro no tiene falsos negativos. Un positivo puede ser falso y se confirma en base.
+ * <p>
+ * Se construye al arrancar desde {@code usuarios} y los servicios agregan cada correo nuevo
+ * antes del commit, así nunca hay una ventana en que un usuario existente se reporte ausente.
+ * Los correos eliminados o reemplazados siguen en el filtro (solo suben la tasa de falsos
+ * positivos) hasta la siguiente reconstrucción periódica.
+ */
+@Component
+public class CorreoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorreoIndex.class);
+
+    private static final long K1 = 0x87C37B91114253D5L;
+    private static final long K2 = 0x4CF5AD432745937FL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final AtomicLong correos = new AtomicLong();
+    private final AtomicLong obsoletos = new AtomicLong();
+    private final Counter skipped;
+    private volatile BloomFilter filter;
+    /** Filtro en construcción; mientras existe, las altas se agregan a ambos. */
+    private volatile BloomFilter building;
+    /** Mientras es {@code true}, las altas que terminan no salen de {@link #recientes}: las reaplica {@link #rebuild}. */
+    private volatile boolean reconstruyendo;
+    /**
+     * Hashes de altas cuya transacción no terminó, más los agregados durante una reconstrucción. Un
+     * alta previa a {@link #building} cuyo commit llega después del escaneo no aparecería en el
+     * filtro nuevo; por eso se reaplican. Cada alta sale al terminar su transacción, así que el
+     * tamaño sigue a las transacciones en curso y no al total de altas.
+     */
+    private final Set<Reciente> recientes = ConcurrentHashMap.newKeySet();
+
+    /** Hash de un alta; {@code terminada} cuando su transacción terminó (o si no había transacción). */
+    private static final class Reciente {
+        final long h1;
+        final long h2;
+        volatile boolean terminada;
+
+        Reciente(long h1, long h2, boolean terminada) {
+            this.h1 = h1;
+            this.h2 = h2;
+            this.terminada = terminada;
+        }
+    }
+
+    public CorreoIndex(JdbcTemplate jdbcTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${usuarios.correo-index.enabled:true}") boolean enabled,
+                       @Value("${usuarios.correo-index.expected-insertions:1000000}") long expectedInsertions,
+                       @Value("${usuarios.correo-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        Gauge.builder("usuarios.correo.index.bytes", this, i -> i.filter.estimatedMemoryBytes())
+                .description("Memoria del filtro de Bloom de correos")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("usuarios.correo.index.skipped")
+                .description("Consultas por correo evitadas porque el correo no está registrado")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        if (!enabled) return;
+        rebuild();
+    }
+
+    /**
+     * @return {@code false} solo si el correo seguro no está registrado
+     */
+    public boolean mightExist(String correo) {
+        if (!enabled || correo == null) return true;
+        long h1 = hash(correo);
+        long h2 = fmix64(h1 + K2);
+        if (filter.mightContain(h1, h2)) return true;
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Registra un correo nuevo; llamar antes del commit que lo inserta.
+     * <p>
+     * El orden importa frente a un {@link #rebuild} concurrente: primero {@link #recientes},
+     * después {@link #building} y al final {@link #filter}. Si {@code building} todavía no existía,
+     * el hash ya estaba en {@code recientes} antes de que empezara el escaneo y se reaplica al filtro
+     * nuevo; si ya se había quitado, {@code filter} ya es el nuevo (se asigna antes).
+     * <p>
+     * Dentro de una transacción el hash sale de {@code recientes} al terminar: un escaneo que empiece
+     * después ya ve la fila. Fuera de una transacción solo se guarda si hay una reconstrucción en curso.
+     */
+    public void add(String correo) {
+        if (!enabled || correo == null) return;
+        long h1 = hash(correo);
+        long h2 = fmix64(h1 + K2);
+        boolean enTransaccion = TransactionSynchronizationManager.isSynchronizationActive();
+        Reciente reciente = new Reciente(h1, h2, !enTransaccion);
+        if (enTransaccion || reconstruyendo) {
+            recientes.add(reciente);
+        }
+        if (enTransaccion) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reciente.terminada = true;
+                    // Con una reconstrucción en curso el escaneo pudo no ver la fila: la quita rebuild al reaplicarla.
+                    if (!reconstruyendo) {
+                        recientes.remove(reciente);
+                    }
+                }
+            });
+        }
+        BloomFilter enConstruccion = building;
+        if (enConstruccion != null) {
+            enConstruccion.put(h1, h2);
+        }
+        filter.put(h1, h2);
+        correos.incrementAndGet();
+    }
+
+    /** Marca que un correo dejó de existir (eliminación o cambio de correo). */
+    public void removed(String correo) {
+        if (!enabled || correo == null) return;
+        obsoletos.incrementAndGet();
+    }
+
+    /** Reconstruye el filtro si hubo eliminaciones o si ya hay más correos que los previstos. */
+    @Scheduled(fixedDelayString = "${usuarios.correo-index.rebuild-interval:PT6H}",
+               initialDelayString = "${usuarios.correo-index.rebuild-interval:PT6H}")
+    public void rebuildIfStale() {
+        if (!enabled) return;
+        if (obsoletos.get() > 0 || correos.get() > expectedInsertions) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        reconstruyendo = true;
+        try {
+            long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Long.class);
+            // 25% de holgura para las altas hasta la próxima reconstrucción.
+            BloomFilter nuevo = new BloomFilter(Math.max(expectedInsertions, count + count / 4), falsePositiveRate);
+            building = nuevo;
+            long[] cargados = {0};
+            long obsoletosAntes = obsoletos.get();
+            jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement("SELECT correo FROM usuarios WHERE correo IS NOT NULL");
+                ps.setFetchSize(10_000);
+                return ps;
+            }, rs -> {
+                String correo = rs.getString(1);
+                long h1 = hash(correo);
+                nuevo.put(h1, fmix64(h1 + K2));
+                cargados[0]++;
+            });
+            long correosAntes = correos.get();
+            long reaplicados = 0;
+            // Las de transacciones aún abiertas se quedan para la próxima reconstrucción.
+            for (Iterator<Reciente> it = recientes.iterator(); it.hasNext(); ) {
+                Reciente r = it.next();
+                if (r.terminada) {
+                    it.remove();
+                }
+                nuevo.put(r.h1, r.h2);
+                reaplicados++;
+            }
+            filter = nuevo;
+            // Filas escaneadas más altas reaplicadas, sin pisar las que llegan mientras tanto. Un alta que
+            // el escaneo ya vio se cuenta dos veces; eso solo adelanta la próxima reconstrucción.
+            correos.addAndGet(cargados[0] + reaplicados - correosAntes);
+            obsoletos.addAndGet(-obsoletosAntes);
+            logger.info("CorreoIndex - {} correos cargados, {} KiB, {} funciones hash",
+                    cargados[0], nuevo.estimatedMemoryBytes() / 1024, nuevo.hashFunctions());
+        } finally {
+            building = null;
+            reconstruyendo = false;
+        }
+    }
+
+    long count() {
+        return correos.get();
+    }
+
+    int recentCount() {
+        return recientes.size();
+    }
+
+    public long estimatedMemoryBytes() {
+        return filter.estimatedMemoryBytes();
+    }
+
+    /**
+     * Hash de 64 bits de los caracteres del correo en una sola pasada. El segundo hash del filtro
+     * se deriva de este con {@link #fmix64}, como las dos mitades de un hash de 128 bits.
+     */
+    static long hash(String s) {
+        long h = K1 ^ s.length();
+        for (int i = 0; i < s.length(); i++) {
+            h = Long.rotateLeft(h ^ (s.charAt(i) * K1), 31) * K2;
+        }
+        return fmix64(h);
+    }
+
+    /** Mezcla final de MurmurHash3. */
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,264 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.model.TokenRevocado;
+import com.evaluacion.usuarios.model.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida de {@code ultimoLogin} y {@code token} tras un login exitoso.
+ * Los logins de un mismo usuario se combinan en memoria (gana el último) y se vuelcan en
+ * lotes JDBC cada {@code flush-interval}, al superar {@code flush-threshold} pendientes y al
+ * detener la aplicación.
+ * <p>
+ * Mientras un login está pendiente, la base de datos conserva el token anterior; por eso las
+ * escrituras de {@link UsuarioService} llaman a {@link #take(UUID)} antes de leer el usuario, y
+ * el login siguiente toma como token anterior el pendiente, no el de la base.
+ * <p>
+ * El token que un login reemplaza se revoca en memoria en el momento y su fila de
+ * {@code tokens_revocados} se escribe en la misma transacción que el lote de usuarios
+ * ({@link #recordRevocation}), así que un login repetido no toca la base.
+ */
+@Component
+public class LoginWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginWriteBehind.class);
+
+    private static final String UPDATE_SQL = "UPDATE usuarios SET ultimo_login = ?, token = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE_REVOCADO_SQL = "DELETE FROM tokens_revocados WHERE firma = ?";
+    private static final String INSERT_REVOCADO_SQL = "INSERT INTO tokens_revocados (firma, expira) VALUES (?, ?)";
+    private static final String UPDATE_NOW_SQL = "UPDATE usuarios SET ultimo_login = ?, token = ?, contrasena = COALESCE(?, contrasena), "
+            + "version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsuarioEntityCache usuarioEntityCache;
+    private final boolean enabled;
+    private final int flushThreshold;
+    private final int batchSize;
+    private final Map<UUID, Pendiente> pendientes = new ConcurrentHashMap<>();
+    /** Filas de {@code tokens_revocados} de tokens ya revocados en memoria, para el próximo volcado. */
+    private final Queue<TokenRevocado> revocaciones = new ConcurrentLinkedQueue<>();
+    /** Serializa los volcados con {@link #take(UUID)} para que no se pierda un login en vuelo. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushProgramado = new AtomicBoolean();
+    private final ExecutorService flushExecutor;
+    private final Counter flushed;
+
+    public LoginWriteBehind(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            UsuarioEntityCache usuarioEntityCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${security.login.write-behind.enabled:false}") boolean enabled,
+                            @Value("${security.login.write-behind.flush-threshold:500}") int flushThreshold,
+                            @Value("${security.login.write-behind.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.usuarioEntityCache = usuarioEntityCache;
+        this.enabled = enabled;
+        this.flushThreshold = flushThreshold;
+        this.batchSize = batchSize;
+        this.flushExecutor = enabled ? Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "login-write-behind");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        Gauge.builder("auth.login.writebehind.pending", pendientes, Map::size)
+                .description("Logins pendientes de persistir")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("auth.login.writebehind.flushed")
+                .description("Filas de usuarios actualizadas por el volcado diferido")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Login pendiente de persistir. */
+    public record Pendiente(LocalDateTime ultimoLogin, String token) {
+
+        public void applyTo(Usuario usuario) {
+            usuario.setUltimoLogin(ultimoLogin);
+            usuario.setToken(token);
+        }
+    }
+
+    /**
+     * Registra un login para escritura diferida.
+     *
+     * @param tokenEnBd token que la base de datos tiene hoy para el usuario
+     * @return el token vigente antes de este login: el pendiente si lo hay, si no {@code tokenEnBd}
+     */
+    public String record(UUID usuarioId, LocalDateTime ultimoLogin, String token, String tokenEnBd) {
+        String[] anterior = new String[1];
+        pendientes.compute(usuarioId, (id, previo) -> {
+            anterior[0] = previo != null ? previo.token() : tokenEnBd;
+            return new Pendiente(ultimoLogin, token);
+        });
+        if (pendientes.size() >= flushThreshold && flushProgramado.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushProgramado.set(false);
+                flush();
+            });
+        }
+        return anterior[0];
+    }
+
+    /**
+     * Encola la fila de un token ya revocado en memoria
+     * ({@link com.evaluacion.usuarios.security.TokenRevocationIndex#revokeInMemory}) para escribirla
+     * con el próximo volcado. {@code null} (token vencido o inválido) se ignora.
+     */
+    public void recordRevocation(TokenRevocado revocado) {
+        if (!enabled || revocado == null) return;
+        revocaciones.add(revocado);
+    }
+
+    /**
+     * Escribe un login de inmediato con un UPDATE dirigido que no compara la versión: dos logins
+     * simultáneos del mismo usuario, o un login que coincide con un PUT/PATCH, no deben fallar por
+     * bloqueo optimista. Gana el último, igual que en el volcado diferido.
+     *
+     * @param contrasena hash regenerado a guardar, o {@code null} para conservar el actual
+     */
+    public void writeNow(UUID usuarioId, LocalDateTime ultimoLogin, String token, String contrasena) {
+        jdbcTemplate.update(UPDATE_NOW_SQL, Timestamp.valueOf(ultimoLogin), token, contrasena, usuarioId);
+        usuarioEntityCache.evict(usuarioId);
+    }
+
+    /**
+     * Quita y devuelve el login pendiente del usuario, esperando a que termine un volcado en curso.
+     * Las escrituras síncronas lo llaman antes de leer el usuario y aplican el resultado a la entidad.
+     * Si la transacción en curso se revierte, el login vuelve a la cola con {@link #restore}.
+     */
+    public Optional<Pendiente> take(UUID usuarioId) {
+        if (!enabled || usuarioId == null) return Optional.empty();
+        Pendiente pendiente;
+        flushLock.lock();
+        try {
+            pendiente = pendientes.remove(usuarioId);
+        } finally {
+            flushLock.unlock();
+        }
+        if (pendiente != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        restore(usuarioId, pendiente);
+                    }
+                }
+            });
+        }
+        return Optional.ofNullable(pendiente);
+    }
+
+    /**
+     * Devuelve a la cola un login quitado con {@link #take} cuya escritura síncrona no se hizo. Si
+     * entretanto se registró un login más nuevo, se conserva ese.
+     */
+    public void restore(UUID usuarioId, Pendiente pendiente) {
+        if (!enabled || usuarioId == null) return;
+        pendientes.putIfAbsent(usuarioId, pendiente);
+    }
+
+    @Scheduled(fixedDelayString = "${security.login.write-behind.flush-interval:PT1S}",
+               initialDelayString = "${security.login.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        if (!enabled || (pendientes.isEmpty() && revocaciones.isEmpty())) return;
+        flushLock.lock();
+        // Las revocaciones van con el primer lote; si su transacción falla vuelven a la cola.
+        List<TokenRevocado> revocadas = new ArrayList<>();
+        for (TokenRevocado r; (r = revocaciones.poll()) != null; ) {
+            revocadas.add(r);
+        }
+        try {
+            List<Map.Entry<UUID, Pendiente>> lote = new ArrayList<>(batchSize);
+            for (Map.Entry<UUID, Pendiente> e : pendientes.entrySet()) {
+                lote.add(Map.entry(e.getKey(), e.getValue()));
+                if (lote.size() == batchSize) {
+                    write(lote, revocadas);
+                    revocadas = List.of();
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty() || !revocadas.isEmpty()) {
+                write(lote, revocadas);
+            }
+        } catch (RuntimeException e) {
+            revocaciones.addAll(revocadas);
+            logger.warn("LoginWriteBehind - flush failed, {} logins and {} revocations remain pending",
+                    pendientes.size(), revocaciones.size(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<Map.Entry<UUID, Pendiente>> lote, List<TokenRevocado> revocadas) {
+        List<Object[]> args = new ArrayList<>(lote.size());
+        for (Map.Entry<UUID, Pendiente> e : lote) {
+            args.add(new Object[]{Timestamp.valueOf(e.getValue().ultimoLogin()), e.getValue().token(), e.getKey()});
+        }
+        List<Object[]> firmas = revocadas.stream().map(r -> new Object[]{r.getFirma()}).toList();
+        List<Object[]> filas = revocadas.stream().map(r -> new Object[]{r.getFirma(), Timestamp.valueOf(r.getExpira())}).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+            }
+            if (!filas.isEmpty()) {
+                // Borrar antes de insertar hace el reintento idempotente si el token ya estaba revocado.
+                jdbcTemplate.batchUpdate(DELETE_REVOCADO_SQL, firmas);
+                jdbcTemplate.batchUpdate(INSERT_REVOCADO_SQL, filas);
+            }
+        });
+        // El UPDATE por JDBC no pasa por Hibernate: sin esto la caché de segundo nivel seguiría con el token anterior.
+        usuarioEntityCache.evict(lote.stream().map(Map.Entry::getKey).toList());
+        // Solo se quitan las entradas que no cambiaron durante la escritura; un login más nuevo queda para el próximo lote.
+        lote.forEach(e -> pendientes.remove(e.getKey(), e.getValue()));
+        flushed.increment(lote.size());
+        logger.debug("LoginWriteBehind - flushed {} logins, {} revocations", lote.size(), revocadas.size());
+    }
+
+    int pendingCount() {
+        return pendientes.size();
+    }
+
+    int pendingRevocationCount() {
+        return revocaciones.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (!enabled) return;
+        flushExecutor.shutdownNow();
+        flush();
+    }
+}
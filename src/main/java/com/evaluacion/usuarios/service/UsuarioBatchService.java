@@ -0,0 +1,341 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.UsuarioBatchResult;
+import com.evaluacion.usuarios.exception.BatchTooLargeException;
+import com.evaluacion.usuarios.exception.PasswordInvalidException;
+import com.evaluacion.usuarios.exception.ServiceBusyException;
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.security.BoundedPasswordEncoder;
+import com.evaluacion.usuarios.security.JwtUtil;
+import com.evaluacion.usuarios.security.PasswordPolicy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Alta masiva de usuarios con la misma semántica que {@link UsuarioService#create}, pero sin
+ * pagar por usuario una consulta, un hash secuencial y varios INSERT sueltos:
+ * <ul>
+ *   <li>los correos ya registrados se buscan con consultas {@code IN} por lotes;</li>
+ *   <li>las contraseñas se hashean en paralelo en el pool de {@link BoundedPasswordEncoder},
+ *       con a lo sumo {@code hashing-window} hashes del lote en vuelo para no acaparar su cola;</li>
+ *   <li>usuarios y teléfonos se insertan con batches JDBC, en una transacción por cada
+ *       {@code chunk-size} usuarios.</li>
+ * </ul>
+ * Cada elemento recibe su propio resultado. Si un chunk falla (p. ej. un alta concurrente con el
+ * mismo correo), se reintenta usuario por usuario para aislar el que falló.
+ */
+@Service
+public class UsuarioBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioBatchService.class);
+
+    private static final String INSERT_USUARIO = "INSERT INTO usuarios "
+            + "(id, nombre, correo, contrasena, creado, modificado, ultimo_login, token, activo) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TELEFONO = "INSERT INTO telefonos "
+            + "(id, numero, codigo_ciudad, codigo_pais, usuario_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String NEXT_TELEFONO_ID = "SELECT NEXT VALUE FOR telefonos_seq";
+    /** Máximo de parámetros por consulta {@code IN} de correos existentes. */
+    private static final int IN_CHUNK = 1000;
+    private static final String ERROR_INTERNO = "Ocurrió un error interno";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordPolicy passwordPolicy;
+    private final JwtUtil jwtUtil;
+    private final CorreoIndex correoIndex;
+    private final Validator validator;
+    private final int maxSize;
+    private final int chunkSize;
+    private final int hashingWindow;
+    /**
+     * Bloque de ids de teléfonos reservado, {@code [siguienteTelefonoId, ultimoTelefonoId]}. Se
+     * interpreta cada valor de la secuencia como el optimizador pooled de Hibernate, para que los
+     * bloques de ambos no se pisen.
+     */
+    private final Object telefonoIdsLock = new Object();
+    private long siguienteTelefonoId = 1;
+    private long ultimoTelefonoId = 0;
+
+    public UsuarioBatchService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               PasswordEncoder passwordEncoder,
+                               PasswordPolicy passwordPolicy,
+                               JwtUtil jwtUtil,
+                               CorreoIndex correoIndex,
+                               Validator validator,
+                               @Value("${usuarios.batch.max-size:10000}") int maxSize,
+                               @Value("${usuarios.batch.chunk-size:500}") int chunkSize,
+                               @Value("${usuarios.batch.hashing-window:16}") int hashingWindow) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.passwordPolicy = passwordPolicy;
+        this.jwtUtil = jwtUtil;
+        this.correoIndex = correoIndex;
+        this.validator = validator;
+        this.maxSize = maxSize;
+        this.chunkSize = chunkSize;
+        this.hashingWindow = Math.max(1, hashingWindow);
+    }
+
+    /**
+     * @return un resultado por usuario, en el mismo orden de la entrada
+     * @throws BatchTooLargeException si el lote supera {@code usuarios.batch.max-size}
+     */
+    public List<UsuarioBatchResult> createAll(List<Usuario> usuarios) {
+        if (usuarios.size() > maxSize) {
+            throw new BatchTooLargeException("El lote admite como máximo " + maxSize + " usuarios");
+        }
+        UsuarioBatchResult[] resultados = new UsuarioBatchResult[usuarios.size()];
+        List<Integer> pendientes = new ArrayList<>(usuarios.size());
+        Set<String> correosDelLote = new HashSet<>();
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario u = usuarios.get(i);
+            String error = validate(u);
+            if (error != null) {
+                resultados[i] = fallido(i, u, 400, error);
+            } else if (!correosDelLote.add(u.getCorreo())) {
+                resultados[i] = fallido(i, u, 409, "El correo está repetido en el lote");
+            } else {
+                pendientes.add(i);
+            }
+        }
+
+        Set<String> registrados = registeredCorreos(pendientes.stream().map(i -> usuarios.get(i).getCorreo()).toList());
+        pendientes.removeIf(i -> {
+            if (!registrados.contains(usuarios.get(i).getCorreo())) return false;
+            resultados[i] = fallido(i, usuarios.get(i), 409, "El correo ya está registrado");
+            return true;
+        });
+
+        hashAll(usuarios, pendientes, resultados);
+        pendientes.removeIf(i -> resultados[i] != null);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i : pendientes) {
+            prepare(usuarios.get(i), now);
+        }
+        for (int desde = 0; desde < pendientes.size(); desde += chunkSize) {
+            insertChunk(usuarios, pendientes.subList(desde, Math.min(desde + chunkSize, pendientes.size())), resultados);
+        }
+        logger.debug("UsuarioBatchService - {} of {} usuarios created", pendientes.size(), usuarios.size());
+        return Arrays.asList(resultados);
+    }
+
+    /** Valida como el alta individual; la contraseña queda sin espacios al inicio y al final. */
+    private String validate(Usuario u) {
+        if (u == null) {
+            return "El usuario es obligatorio";
+        }
+        List<String> errores = new ArrayList<>();
+        validator.validate(u).stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .forEach(v -> errores.add(invalido(v.getPropertyPath().toString(), v)));
+        if (u.getTelefonos() != null) {
+            for (int t = 0; t < u.getTelefonos().size(); t++) {
+                String prefijo = "telefonos[" + t + "].";
+                validator.validate(u.getTelefonos().get(t)).stream()
+                        .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                        .forEach(v -> errores.add(invalido(prefijo + v.getPropertyPath(), v)));
+            }
+        }
+        if (!errores.isEmpty()) {
+            return String.join("; ", errores);
+        }
+        u.setContrasena(u.getContrasena().trim());
+        try {
+            passwordPolicy.validate(u.getContrasena());
+        } catch (PasswordInvalidException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    /** Mismo formato que los errores de {@code @Validated} en el alta individual. */
+    private static String invalido(String campo, ConstraintViolation<?> violacion) {
+        if ("contrasena".equals(campo)) {
+            campo = "contraseña";
+        }
+        return String.format("El campo '%s' es inválido. Detalle: %s", campo, violacion.getMessage());
+    }
+
+    /** Correos del lote que ya existen, con una consulta {@code IN} por cada {@value #IN_CHUNK} candidatos. */
+    private Set<String> registeredCorreos(List<String> correos) {
+        List<String> candidatos = correos.stream().filter(correoIndex::mightExist).toList();
+        if (candidatos.isEmpty()) return Collections.emptySet();
+        Set<String> registrados = new HashSet<>();
+        for (int desde = 0; desde < candidatos.size(); desde += IN_CHUNK) {
+            List<String> parte = candidatos.subList(desde, Math.min(desde + IN_CHUNK, candidatos.size()));
+            String placeholders = String.join(",", Collections.nCopies(parte.size(), "?"));
+            registrados.addAll(jdbcTemplate.queryForList(
+                    "SELECT correo FROM usuarios WHERE correo IN (" + placeholders + ")", String.class, parte.toArray()));
+        }
+        return registrados;
+    }
+
+    /** Hashea las contraseñas en paralelo; los que fallan quedan con su resultado de error. */
+    private void hashAll(List<Usuario> usuarios, List<Integer> indices, UsuarioBatchResult[] resultados) {
+        Deque<Map.Entry<Integer, CompletableFuture<String>>> enVuelo = new ArrayDeque<>(hashingWindow);
+        for (int i : indices) {
+            if (enVuelo.size() >= hashingWindow) {
+                complete(enVuelo.poll(), usuarios, resultados);
+            }
+            String raw = usuarios.get(i).getContrasena();
+            CompletableFuture<String> hash = encodeAsync(raw);
+            // Cola ocupada por otras peticiones: esperar un hash propio antes de reintentar.
+            while (hash.isCompletedExceptionally() && !enVuelo.isEmpty()) {
+                complete(enVuelo.poll(), usuarios, resultados);
+                hash = encodeAsync(raw);
+            }
+            enVuelo.add(Map.entry(i, hash));
+        }
+        while (!enVuelo.isEmpty()) {
+            complete(enVuelo.poll(), usuarios, resultados);
+        }
+    }
+
+    private CompletableFuture<String> encodeAsync(String raw) {
+        if (passwordEncoder instanceof BoundedPasswordEncoder bounded) {
+            return bounded.encodeAsync(raw);
+        }
+        try {
+            return CompletableFuture.completedFuture(passwordEncoder.encode(raw));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void complete(Map.Entry<Integer, CompletableFuture<String>> hash, List<Usuario> usuarios,
+                          UsuarioBatchResult[] resultados) {
+        int i = hash.getKey();
+        Usuario u = usuarios.get(i);
+        try {
+            u.setContrasena(hash.getValue().join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ServiceBusyException busy) {
+                resultados[i] = fallido(i, u, 503, busy.getMessage());
+            } else {
+                logger.error("UsuarioBatchService - password hashing failed for item {}", i, e.getCause());
+                resultados[i] = fallido(i, u, 500, ERROR_INTERNO);
+            }
+        }
+    }
+
+    private void prepare(Usuario u, LocalDateTime now) {
+        if (u.getId() == null) {
+            u.setId(UUID.randomUUID());
+        }
+        u.setCreado(now);
+        u.setUltimoLogin(now);
+        u.setModificado(now);
+        u.setToken(jwtUtil.generateToken(u));
+        if (u.getTelefonos() != null) {
+            u.getTelefonos().forEach(t -> t.setUsuario(u));
+        }
+    }
+
+    private void insertChunk(List<Usuario> usuarios, List<Integer> indices, UsuarioBatchResult[] resultados) {
+        List<Usuario> chunk = indices.stream().map(usuarios::get).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk));
+            for (int i : indices) {
+                resultados[i] = creado(i, usuarios.get(i));
+            }
+        } catch (DataAccessException e) {
+            logger.debug("UsuarioBatchService - chunk of {} failed, retrying one by one: {}", chunk.size(), e.getMessage());
+            for (int i : indices) {
+                Usuario u = usuarios.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(u)));
+                    resultados[i] = creado(i, u);
+                } catch (DuplicateKeyException dup) {
+                    resultados[i] = fallido(i, u, 409, "El correo ya está registrado");
+                } catch (DataAccessException ex) {
+                    logger.error("UsuarioBatchService - insert failed for item {}", i, ex);
+                    resultados[i] = fallido(i, u, 500, ERROR_INTERNO);
+                }
+            }
+        }
+    }
+
+    private void insert(List<Usuario> chunk) {
+        List<Object[]> filasUsuarios = new ArrayList<>(chunk.size());
+        List<Object[]> filasTelefonos = new ArrayList<>();
+        int telefonos = chunk.stream().mapToInt(u -> u.getTelefonos() != null ? u.getTelefonos().size() : 0).sum();
+        long[] ids = nextTelefonoIds(telefonos);
+        int siguiente = 0;
+        for (Usuario u : chunk) {
+            correoIndex.add(u.getCorreo());
+            filasUsuarios.add(new Object[]{u.getId(), u.getNombre(), u.getCorreo(), u.getContrasena(),
+                    Timestamp.valueOf(u.getCreado()), Timestamp.valueOf(u.getModificado()),
+                    Timestamp.valueOf(u.getUltimoLogin()), u.getToken(), u.isActivo()});
+            if (u.getTelefonos() != null) {
+                for (Telefono t : u.getTelefonos()) {
+                    filasTelefonos.add(new Object[]{ids[siguiente++], t.getNumero(), t.getCodigoCiudad(), t.getCodigoPais(), u.getId()});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_USUARIO, filasUsuarios);
+        if (!filasTelefonos.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TELEFONO, filasTelefonos);
+        }
+    }
+
+    /**
+     * Toma {@code cantidad} ids de {@code telefonos_seq} con una llamada a la secuencia cada
+     * {@link Telefono#ID_ALLOCATION_SIZE} ids, como el optimizador pooled de Hibernate: el valor
+     * {@code v} reserva {@code (v - 50, v]}, salvo el valor inicial 1, que reserva solo el 1. Un
+     * INSERT que usara el DEFAULT de la columna gastaría un valor de la secuencia por fila.
+     */
+    private long[] nextTelefonoIds(int cantidad) {
+        long[] ids = new long[cantidad];
+        synchronized (telefonoIdsLock) {
+            for (int i = 0; i < cantidad; i++) {
+                if (siguienteTelefonoId > ultimoTelefonoId) {
+                    long valor = jdbcTemplate.queryForObject(NEXT_TELEFONO_ID, Long.class);
+                    siguienteTelefonoId = Math.max(1, valor - Telefono.ID_ALLOCATION_SIZE + 1);
+                    ultimoTelefonoId = valor;
+                }
+                ids[i] = siguienteTelefonoId++;
+            }
+        }
+        return ids;
+    }
+
+    private static UsuarioBatchResult creado(int indice, Usuario u) {
+        return new UsuarioBatchResult(indice, u.getCorreo(), 201, u.getId(), u.getToken(), null);
+    }
+
+    private static UsuarioBatchResult fallido(int indice, Usuario u, int estado, String mensaje) {
+        return new UsuarioBatchResult(indice, u != null ? u.getCorreo() : null, estado, null, null, mensaje);
+    }
+}
@@ -0,0 +1,45 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.UsuarioResponse;
+import com.evaluacion.usuarios.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición en el listado ordenado por {@code (creado, id)}: el último usuario de la página
+ * anterior. Se envía al cliente como un token base64url opaco.
+ */
+public record UsuarioCursor(LocalDateTime creado, UUID id) {
+
+    private static final char SEPARADOR = '|';
+
+    public static UsuarioCursor after(UsuarioResponse usuario) {
+        return new UsuarioCursor(usuario.creado(), usuario.id());
+    }
+
+    public String encode() {
+        String valor = creado + String.valueOf(SEPARADOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException si el token no fue emitido por {@link #encode()}
+     */
+    public static UsuarioCursor decode(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new InvalidCursorException("Cursor de paginación inválido");
+            }
+            return new UsuarioCursor(LocalDateTime.parse(valor.substring(0, separador)),
+                    UUID.fromString(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Invalida la caché de segundo nivel de Hibernate para las escrituras que no pasan por JPA (UPDATE
+ * y DELETE por SQL, que Hibernate no ve): el usuario y su colección de teléfonos por id, y la
+ * resolución correo → id cuando se eliminan filas. Todo por clave, sin vaciar regiones.
+ */
+@Component
+public class UsuarioEntityCache {
+
+    private static final String TELEFONOS = Usuario.class.getName() + ".telefonos";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final Cache cache;
+
+    public UsuarioEntityCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = sessionFactory.getCache();
+    }
+
+    /**
+     * Invalida los usuarios indicados de inmediato y de nuevo al terminar la transacción en curso,
+     * para que una lectura concurrente no deje en caché datos previos al commit.
+     */
+    public void evict(Collection<UUID> ids) {
+        if (ids.isEmpty()) return;
+        List<UUID> copia = List.copyOf(ids);
+        evictNowAndAfterCompletion(() -> evictNow(copia));
+    }
+
+    public void evict(UUID id) {
+        evict(List.of(id));
+    }
+
+    /**
+     * Invalida la resolución correo → id de {@code correos}, como {@link #evict(Collection)}. Para
+     * borrados físicos: un correo liberado puede volver a registrarse por JDBC con otro id.
+     * {@link Cache} solo vacía la región entera, así que se usa el acceso a la región del natural id.
+     */
+    public void evictCorreos(Collection<String> correos) {
+        if (correos.isEmpty()) return;
+        List<String> copia = List.copyOf(correos);
+        evictNowAndAfterCompletion(() -> evictCorreosNow(copia));
+    }
+
+    /** Vacía las regiones de usuarios, teléfonos y correos. */
+    public void evictAll() {
+        cache.evictEntityData(Usuario.class);
+        cache.evictCollectionData(TELEFONOS);
+        cache.evictNaturalIdData(Usuario.class);
+        cache.evictEntityData(Telefono.class);
+    }
+
+    private static void evictNowAndAfterCompletion(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private void evictCorreosNow(List<String> correos) {
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(Usuario.class);
+        NaturalIdDataAccess access = persister.getNaturalIdMapping().getCacheAccess();
+        // La clave depende de la sesión solo por el tenant; basta una sesión sin estado que no pide conexión.
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (String correo : correos) {
+                access.evict(access.generateCacheKey(correo, persister, (SharedSessionContractImplementor) session));
+            }
+        }
+    }
+
+    private void evictNow(List<UUID> ids) {
+        for (UUID id : ids) {
+            cache.evictEntityData(Usuario.class, id);
+            cache.evictCollectionData(TELEFONOS, id);
+        }
+    }
+}
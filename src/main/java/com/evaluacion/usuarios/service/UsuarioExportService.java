@@ -0,0 +1,83 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.UsuarioResponse;
+import com.evaluacion.usuarios.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de todos los usuarios como NDJSON (un usuario por línea, con el formato de
+ * {@code GET /api/usuarios/{id}}) con memoria acotada por {@code chunk-size}, no por el tamaño
+ * de la tabla.
+ * <p>
+ * Los usuarios se leen por proyección con {@link UsuarioRepository#streamAll()} (cursor con fetch
+ * size, sin entidades administradas) y se agrupan de a {@code chunk-size}: los teléfonos del grupo
+ * se cargan con una sola consulta y el grupo se escribe en la salida antes de leer el siguiente.
+ */
+@Service
+public class UsuarioExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioExportService.class);
+
+    private static final byte[] NUEVA_LINEA = {'\n'};
+
+    private final UsuarioRepository usuarioRepository;
+    private final ObjectWriter writer;
+    private final int chunkSize;
+
+    public UsuarioExportService(UsuarioRepository usuarioRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${usuarios.export.chunk-size:500}") int chunkSize) {
+        this.usuarioRepository = usuarioRepository;
+        this.writer = objectMapper.writerFor(UsuarioResponse.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Escribe en {@code out} una línea JSON por usuario, en orden de {@code (creado, id)}, y hace
+     * flush tras cada grupo.
+     *
+     * @return cantidad de usuarios exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long exportados = 0;
+        List<UsuarioResponse> grupo = new ArrayList<>(chunkSize);
+        try (Stream<UsuarioResponse> usuarios = usuarioRepository.streamAll()) {
+            Iterator<UsuarioResponse> it = usuarios.iterator();
+            while (it.hasNext()) {
+                grupo.add(it.next());
+                if (grupo.size() == chunkSize) {
+                    exportados += write(grupo, out);
+                }
+            }
+            exportados += write(grupo, out);
+        }
+        logger.debug("UsuarioExportService - export finished: {} usuarios", exportados);
+        return exportados;
+    }
+
+    private int write(List<UsuarioResponse> grupo, OutputStream out) throws IOException {
+        if (grupo.isEmpty()) return 0;
+        for (UsuarioResponse u : UsuarioService.withTelefonos(usuarioRepository, grupo)) {
+            out.write(writer.writeValueAsBytes(u));
+            out.write(NUEVA_LINEA);
+        }
+        out.flush();
+        int escritos = grupo.size();
+        grupo.clear();
+        return escritos;
+    }
+}
@@ -0,0 +1,308 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.UsuarioBatchResult;
+import com.evaluacion.usuarios.dto.UsuarioCreateRequest;
+import com.evaluacion.usuarios.dto.UsuarioImportError;
+import com.evaluacion.usuarios.dto.UsuarioImportProgress;
+import com.evaluacion.usuarios.model.Usuario;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Importación de usuarios desde NDJSON (un {@link UsuarioCreateRequest} por línea) con memoria
+ * constante: cada línea se parsea con un {@link JsonParser} directamente desde la entrada, sin
+ * copiarla antes a un {@code String}, y los usuarios se agrupan en lotes de {@code chunk-size}
+ * que procesa {@link UsuarioBatchService} (validación, hashing en paralelo e inserts por lote).
+ * <p>
+ * El parser de cada línea lee de una vista de la entrada que termina en el {@code \n}: un JSON mal
+ * formado solo invalida su línea, y una línea de más de {@code max-line-length} bytes se corta en
+ * ese punto y se descarta sin guardarla.
+ * <p>
+ * Mientras un lote se hashea e inserta en un hilo aparte, se lee y parsea el siguiente; nunca hay
+ * más de dos lotes en memoria. Los errores por línea y el avance tras cada lote se escriben en
+ * {@code out} a medida que se producen.
+ */
+@Service
+public class UsuarioImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioImportService.class);
+
+    private static final byte[] NUEVA_LINEA = {'\n'};
+
+    private final UsuarioBatchService usuarioBatchService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+    private final int chunkSize;
+    private final int maxLineLength;
+
+    public UsuarioImportService(UsuarioBatchService usuarioBatchService,
+                                ObjectMapper objectMapper,
+                                @Value("${usuarios.import.chunk-size:500}") int chunkSize,
+                                @Value("${usuarios.import.max-line-length:65536}") int maxLineLength) {
+        this.usuarioBatchService = usuarioBatchService;
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(UsuarioCreateRequest.class);
+        this.chunkSize = chunkSize;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /** Lote leído del NDJSON: usuarios con su número de línea y errores de lectura. */
+    private static final class Lote {
+        final List<Usuario> usuarios = new ArrayList<>();
+        final List<Long> lineas = new ArrayList<>();
+        final List<UsuarioImportError> errores = new ArrayList<>();
+
+        int size() {
+            return usuarios.size() + errores.size();
+        }
+    }
+
+    private static final class Totales {
+        long procesados;
+        long creados;
+        long fallidos;
+    }
+
+    /**
+     * Importa las líneas de {@code in} y escribe en {@code out} una línea JSON por cada error y
+     * una de avance por cada lote. Las líneas en blanco se ignoran.
+     *
+     * @return el avance final
+     */
+    public UsuarioImportProgress importNdjson(InputStream in, OutputStream out) throws IOException {
+        LineaNdjson linea = new LineaNdjson(in, maxLineLength);
+        ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "usuarios-import");
+            t.setDaemon(true);
+            return t;
+        });
+        Totales totales = new Totales();
+        Lote lote = new Lote();
+        Lote enCurso = null;
+        Future<List<UsuarioBatchResult>> resultados = null;
+        long numero = 0;
+        try {
+            while (linea.next()) {
+                numero++;
+                if (!read(numero, linea, lote)) continue;
+                if (lote.size() >= chunkSize) {
+                    finish(enCurso, resultados, totales, out);
+                    enCurso = lote;
+                    resultados = submit(worker, enCurso);
+                    lote = new Lote();
+                }
+            }
+            finish(enCurso, resultados, totales, out);
+            finish(lote, submit(worker, lote), totales, out);
+            UsuarioImportProgress fin = new UsuarioImportProgress(totales.procesados, totales.creados, totales.fallidos, true, null);
+            write(out, fin);
+            logger.debug("UsuarioImportService - import finished: {} lines, {} created, {} failed",
+                    totales.procesados, totales.creados, totales.fallidos);
+            return fin;
+        } catch (RuntimeException e) {
+            logger.error("UsuarioImportService - import aborted after {} lines", numero, e);
+            UsuarioImportProgress fin = new UsuarioImportProgress(totales.procesados, totales.creados, totales.fallidos,
+                    false, "Ocurrió un error interno; las líneas informadas como procesadas quedaron confirmadas");
+            write(out, fin);
+            return fin;
+        } finally {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Parsea la línea actual y la agrega al lote como usuario o como error.
+     *
+     * @return {@code false} si la línea está en blanco
+     * @throws IOException si falla la lectura de la entrada (no el contenido de la línea)
+     */
+    private boolean read(long numero, LineaNdjson linea, Lote lote) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(linea)) {
+            if (parser.nextToken() == null) return false;
+            UsuarioCreateRequest dto = reader.readValue(parser);
+            if (parser.nextToken() != null) {
+                lote.errores.add(new UsuarioImportError(numero, null, 400, "JSON mal formado o contenido inválido"));
+            } else {
+                lote.usuarios.add(dto != null ? dto.toUsuario() : null);
+                lote.lineas.add(numero);
+            }
+        } catch (IOException e) {
+            if (linea.inputFailed()) throw e;
+            lote.errores.add(new UsuarioImportError(numero, null, 400, linea.tooLong()
+                    ? "La línea supera el máximo de " + maxLineLength + " bytes"
+                    : "JSON mal formado o contenido inválido"));
+        } finally {
+            linea.skipRest();
+        }
+        return true;
+    }
+
+    private Future<List<UsuarioBatchResult>> submit(ExecutorService worker, Lote lote) {
+        List<Usuario> usuarios = lote.usuarios;
+        return worker.submit(() -> usuarios.isEmpty() ? List.of() : usuarioBatchService.createAll(usuarios));
+    }
+
+    /** Espera el lote en curso y escribe sus errores en orden de línea, seguidos del avance. */
+    private void finish(Lote lote, Future<List<UsuarioBatchResult>> resultados, Totales totales, OutputStream out)
+            throws IOException {
+        if (lote == null) return;
+        List<UsuarioBatchResult> porUsuario;
+        try {
+            porUsuario = resultados.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importación interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+        List<UsuarioImportError> errores = new ArrayList<>(lote.errores);
+        for (UsuarioBatchResult r : porUsuario) {
+            if (r.estado() == 201) {
+                totales.creados++;
+            } else {
+                errores.add(new UsuarioImportError(lote.lineas.get(r.indice()), r.correo(), r.estado(), r.mensaje()));
+            }
+        }
+        errores.sort(Comparator.comparingLong(UsuarioImportError::linea));
+        for (UsuarioImportError error : errores) {
+            write(out, error);
+        }
+        totales.procesados += lote.size();
+        totales.fallidos += errores.size();
+        if (lote.size() > 0) {
+            write(out, new UsuarioImportProgress(totales.procesados, totales.creados, totales.fallidos, null, null));
+        }
+        out.flush();
+    }
+
+    private void write(OutputStream out, Object valor) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(valor));
+        out.write(NUEVA_LINEA);
+    }
+
+    /**
+     * La línea actual de la entrada como {@link InputStream}: devuelve -1 en el {@code \n} (que
+     * consume) y falla al superar {@code maximo} bytes. {@link #next()} pasa a la siguiente.
+     */
+    private static final class LineaNdjson extends InputStream {
+
+        private final InputStream in;
+        private final int maximo;
+        private final byte[] buffer = new byte[8192];
+        private int pos;
+        private int lim;
+        private int leidos;
+        private boolean finDeEntrada;
+        private boolean finDeLinea;
+        private boolean excedida;
+        private boolean errorDeEntrada;
+
+        LineaNdjson(InputStream in, int maximo) {
+            this.in = in;
+            this.maximo = maximo;
+        }
+
+        /** Empieza la línea siguiente; {@code false} si la entrada terminó. */
+        boolean next() throws IOException {
+            finDeLinea = false;
+            excedida = false;
+            leidos = 0;
+            return pos < lim || fill();
+        }
+
+        boolean tooLong() {
+            return excedida;
+        }
+
+        boolean inputFailed() {
+            return errorDeEntrada;
+        }
+
+        private boolean fill() throws IOException {
+            if (finDeEntrada) return false;
+            int n;
+            try {
+                n = in.read(buffer);
+            } catch (IOException e) {
+                errorDeEntrada = true;
+                throw e;
+            }
+            if (n < 0) {
+                finDeEntrada = true;
+                return false;
+            }
+            pos = 0;
+            lim = n;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (finDeLinea || (pos == lim && !fill())) {
+                finDeLinea = true;
+                return -1;
+            }
+            int fin = Math.min(lim, pos + len);
+            int i = pos;
+            while (i < fin && buffer[i] != '\n') i++;
+            int n = i - pos;
+            System.arraycopy(buffer, pos, b, off, n);
+            pos = i;
+            if (i < fin) {
+                pos++;
+                finDeLinea = true;
+            }
+            leidos += n;
+            if (leidos > maximo) {
+                excedida = true;
+                throw new IOException("Línea de más de " + maximo + " bytes");
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        /** Descarta lo que quede de la línea actual sin guardarlo. */
+        void skipRest() throws IOException {
+            while (!finDeLinea) {
+                if (pos == lim && !fill()) break;
+                int i = pos;
+                while (i < lim && buffer[i] != '\n') i++;
+                if (i < lim) {
+                    finDeLinea = true;
+                    i++;
+                }
+                pos = i;
+            }
+            finDeLinea = true;
+        }
+
+        /** El parser de cada línea la cierra al terminar; la entrada sigue abierta. */
+        @Override
+        public void close() {
+        }
+    }
+}
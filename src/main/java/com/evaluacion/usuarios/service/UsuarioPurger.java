@@ -0,0 +1,136 @@
+package com.evaluacion.usuarios.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elimina físicamente los usuarios borrados por {@link UsuarioService#delete} (que solo los marca
+ * {@code activo = FALSE}) y, por el {@code ON DELETE CASCADE}, sus teléfonos.
+ * <p>
+ * Corre según {@code usuarios.purge.cron} (por defecto, de madrugada) y borra de a
+ * {@code batch-size} usuarios: cada lote lee ids y correos y borra por id en su propia transacción
+ * corta, así que los bloqueos duran lo que un lote. Entre lotes espera lo necesario para no superar
+ * {@code max-rows-per-second}, y cada corrida se detiene tras {@code max-duration}; lo que quede se
+ * borra en la siguiente. De la caché de segundo nivel se invalidan solo los usuarios del lote y sus
+ * correos, que se pueden volver a registrar.
+ */
+@Component
+public class UsuarioPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioPurger.class);
+
+    /** Un lote de inactivos por el índice {@code ix_usuarios_activo_creado_id}. */
+    private static final String SELECT_SQL = "SELECT id, correo FROM usuarios WHERE activo = FALSE "
+            + "ORDER BY creado, id FETCH FIRST :limite ROWS ONLY";
+    private static final String DELETE_SQL = "DELETE FROM usuarios WHERE id IN (:ids) AND activo = FALSE";
+
+    /** Usuario del lote: el id para borrar e invalidar la caché, el correo para liberarlo. */
+    private record Purgado(UUID id, String correo) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CorreoIndex correoIndex;
+    private final UsuarioEntityCache usuarioEntityCache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxRowsPerSecond;
+    private final Duration maxDuration;
+    private final Counter purged;
+
+    public UsuarioPurger(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         CorreoIndex correoIndex,
+                         UsuarioEntityCache usuarioEntityCache,
+                         MeterRegistry meterRegistry,
+                         @Value("${usuarios.purge.enabled:true}") boolean enabled,
+                         @Value("${usuarios.purge.batch-size:100}") int batchSize,
+                         @Value("${usuarios.purge.max-rows-per-second:500}") int maxRowsPerSecond,
+                         @Value("${usuarios.purge.max-duration:PT4M}") Duration maxDuration) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.correoIndex = correoIndex;
+        this.usuarioEntityCache = usuarioEntityCache;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRowsPerSecond = Math.max(1, maxRowsPerSecond);
+        this.maxDuration = maxDuration;
+        this.purged = Counter.builder("usuarios.purge.deleted")
+                .description("Usuarios inactivos eliminados por la purga")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${usuarios.purge.cron:0 */5 2-5 * * *}")
+    public void purgeScheduled() {
+        if (!enabled) return;
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            logger.warn("UsuarioPurger - purge failed", e);
+        }
+    }
+
+    /**
+     * Borra lotes de usuarios inactivos hasta que no quede ninguno o pase {@code max-duration}.
+     *
+     * @return usuarios eliminados
+     */
+    public int purge() {
+        long inicio = System.nanoTime();
+        long limite = inicio + maxDuration.toNanos();
+        int total = 0;
+        while (true) {
+            List<Purgado> lote = transactionTemplate.execute(status -> deleteBatch());
+            lote.forEach(p -> correoIndex.removed(p.correo()));
+            purged.increment(lote.size());
+            total += lote.size();
+            if (lote.size() < batchSize || System.nanoTime() >= limite) break;
+            if (!esperar(inicio, total, limite)) break;
+        }
+        if (total > 0) {
+            logger.info("UsuarioPurger - {} usuarios inactivos eliminados", total);
+        }
+        return total;
+    }
+
+    private List<Purgado> deleteBatch() {
+        List<Purgado> lote = jdbcTemplate.query(SELECT_SQL, new MapSqlParameterSource("limite", batchSize),
+                (rs, rowNum) -> new Purgado(rs.getObject("id", UUID.class), rs.getString("correo")));
+        if (lote.isEmpty()) return lote;
+        List<UUID> ids = lote.stream().map(Purgado::id).toList();
+        jdbcTemplate.update(DELETE_SQL, new MapSqlParameterSource("ids", ids));
+        // El DELETE por JDBC no pasa por Hibernate: el usuario, sus teléfonos y correo → id seguirían en caché.
+        usuarioEntityCache.evict(ids);
+        usuarioEntityCache.evictCorreos(lote.stream().map(Purgado::correo).toList());
+        return lote;
+    }
+
+    /** Duerme hasta que {@code total} filas no superen {@code max-rows-per-second} desde {@code inicio}. */
+    private boolean esperar(long inicio, int total, long limite) {
+        long objetivo = inicio + TimeUnit.SECONDS.toNanos(total) / maxRowsPerSecond;
+        long espera = Math.min(objetivo, limite) - System.nanoTime();
+        if (espera <= 0) return true;
+        try {
+            TimeUnit.NANOSECONDS.sleep(espera);
+            return System.nanoTime() < limite;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.evaluacion.usuarios.service;
 
+import com.evaluacion.usuarios.dto.UsuarioResponse;
 import com.evaluacion.usuarios.exception.ResourceNotFoundException;
 import com.evaluacion.usuarios.model.Usuario;
 import com.evaluacion.usuarios.repository.UsuarioRepository;
@@ -18,50 +19,254 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
     private final com.evaluacion.usuarios.security.JwtUtil jwtUtil;
+    private final com.evaluacion.usuarios.security.TokenRevocationIndex tokenRevocationIndex;
+    private final com.evaluacion.usuarios.security.UsuarioDetailsCache usuarioDetailsCache;
+    private final LoginWriteBehind loginWriteBehind;
+    private final CorreoIndex correoIndex;
+    private final com.evaluacion.usuarios.security.PasswordPolicy passwordPolicy;
+    private final UsuarioEntityCache usuarioEntityCache;
 
-    @org.springframework.beans.factory.annotation.Value("${security.password.regex:^(?=.{8,}$)(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)[A-Za-z0-9.@_/!*&#$%^(){}\\[\\]:-]{8,}$}")
-    private String passwordRegex;
+    @org.springframework.beans.factory.annotation.Value("${usuarios.page.default-size:50}")
+    private int defaultPageSize = 50;
 
-    @org.springframework.beans.factory.annotation.Value("${security.password.message:La contraseña no cumple el patrón requerido}")
-    private String passwordErrorMessage;
+    @org.springframework.beans.factory.annotation.Value("${usuarios.page.max-size:500}")
+    private int maxPageSize = 500;
 
-    public UsuarioService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder, com.evaluacion.usuarios.security.JwtUtil jwtUtil) {
+    @org.springframework.beans.factory.annotation.Value("${usuarios.delete.chunk-size:500}")
+    private int deleteChunkSize = 500;
+
+    @org.springframework.beans.factory.annotation.Value("${usuarios.delete.max-size:10000}")
+    private int maxDeleteSize = 10000;
+
+    public UsuarioService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder, com.evaluacion.usuarios.security.JwtUtil jwtUtil,
+                          com.evaluacion.usuarios.security.TokenRevocationIndex tokenRevocationIndex,
+                          com.evaluacion.usuarios.security.UsuarioDetailsCache usuarioDetailsCache,
+                          LoginWriteBehind loginWriteBehind, CorreoIndex correoIndex,
+                          com.evaluacion.usuarios.security.PasswordPolicy passwordPolicy,
+                          UsuarioEntityCache usuarioEntityCache) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.usuarioDetailsCache = usuarioDetailsCache;
+        this.loginWriteBehind = loginWriteBehind;
+        this.correoIndex = correoIndex;
+        this.passwordPolicy = passwordPolicy;
+        this.usuarioEntityCache = usuarioEntityCache;
     }
 
-    private static final String DEFAULT_PASSWORD_REGEX = "^(?=.{8,}$)(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)[A-Za-z0-9.@_/!*&#$%^(){}\\[\\]:-]{8,}$";
-
-    private String getEffectivePasswordRegex() {
-        return (passwordRegex != null && !passwordRegex.isBlank()) ? passwordRegex : DEFAULT_PASSWORD_REGEX;
+    private void rotateToken(Usuario usuario) {
+        String anterior = usuario.getToken();
+        usuario.setToken(jwtUtil.generateToken(usuario));
+        if (anterior != null && !anterior.equals(usuario.getToken())) {
+            tokenRevocationIndex.revoke(anterior);
+        }
     }
 
     private String validateAndEncodePassword(String rawPassword) {
         if (rawPassword == null) return null;
         String pw = rawPassword.trim();
-
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(getEffectivePasswordRegex());
-        if (!p.matcher(pw).matches()) {
-            String err = (passwordErrorMessage != null && !passwordErrorMessage.isBlank()) ? passwordErrorMessage : "La contraseña no cumple el patrón requerido";
-            throw new com.evaluacion.usuarios.exception.PasswordInvalidException(err);
-        }
+        passwordPolicy.validate(pw);
         return passwordEncoder.encode(pw);
     }
 
+    @Transactional(readOnly = true)
     public List<Usuario> findAll() {
-        return usuarioRepository.findAll();
+        List<Usuario> usuarios = usuarioRepository.findAll();
+        // Por el @BatchSize de Usuario.telefonos son ceil(n / 100) consultas, no una por usuario.
+        usuarios.forEach(u -> org.hibernate.Hibernate.initialize(u.getTelefonos()));
+        return usuarios;
+    }
+
+    /**
+     * Agrega los teléfonos a usuarios leídos por proyección, con una consulta para todos ellos
+     * ({@code usuario_id IN (...)}), sin cargar entidades.
+     */
+    static List<UsuarioResponse> withTelefonos(UsuarioRepository usuarioRepository, List<UsuarioResponse> usuarios) {
+        if (usuarios.isEmpty()) return usuarios;
+        java.util.Map<UUID, List<com.evaluacion.usuarios.dto.TelefonoResponse>> porUsuario = new java.util.HashMap<>();
+        for (UsuarioRepository.TelefonoFila t : usuarioRepository.findTelefonos(usuarios.stream().map(UsuarioResponse::id).toList())) {
+            porUsuario.computeIfAbsent(t.getUsuarioId(), k -> new java.util.ArrayList<>())
+                    .add(new com.evaluacion.usuarios.dto.TelefonoResponse(t.getNumero(), t.getCodigoCiudad(), t.getCodigoPais()));
+        }
+        return usuarios.stream()
+                .map(u -> u.withTelefonos(porUsuario.getOrDefault(u.id(), List.of())))
+                .toList();
+    }
+
+    /** Página del listado y cursor de la siguiente, o {@code null} si es la última. */
+    public record Pagina(List<UsuarioResponse> usuarios, String siguienteCursor) {
+    }
+
+    /**
+     * Página del listado ordenado por {@code (creado, id)}, paginado por keyset. Se lee por
+     * proyección: dos consultas (usuarios y teléfonos) y ninguna entidad administrada.
+     *
+     * @param cursor {@link UsuarioCursor} devuelto por la página anterior, o {@code null} para la primera
+     * @param limit  tamaño pedido; {@code null} usa {@code usuarios.page.default-size} y nunca supera {@code max-size}
+     */
+    @Transactional(readOnly = true)
+    public Pagina findPage(String cursor, Integer limit) {
+        int tamano = Math.min(limit != null && limit > 0 ? limit : defaultPageSize, maxPageSize);
+        // Se pide un elemento extra para saber si hay página siguiente sin otra consulta.
+        org.springframework.data.domain.Limit consulta = org.springframework.data.domain.Limit.of(tamano + 1);
+        List<UsuarioResponse> usuarios;
+        if (cursor == null || cursor.isBlank()) {
+            usuarios = usuarioRepository.findFirstPage(consulta);
+        } else {
+            UsuarioCursor desde = UsuarioCursor.decode(cursor);
+            usuarios = usuarioRepository.findPageAfter(desde.creado(), desde.id(), consulta);
+        }
+        return pagina(usuarios, tamano);
+    }
+
+    /** {@code usuarios} trae hasta {@code tamano + 1} filas: la extra solo indica que hay página siguiente. */
+    private Pagina pagina(List<UsuarioResponse> usuarios, int tamano) {
+        if (usuarios.size() <= tamano) {
+            return new Pagina(withTelefonos(usuarioRepository, usuarios), null);
+        }
+        List<UsuarioResponse> pagina = withTelefonos(usuarioRepository, usuarios.subList(0, tamano));
+        return new Pagina(pagina, UsuarioCursor.after(pagina.get(tamano - 1)).encode());
     }
 
+    /**
+     * Búsqueda con los filtros de {@code filtro}, paginada como {@link #findPage} (mismo orden y
+     * cursor) y leída por proyección. Los textos vacíos cuentan como ausentes.
+     *
+     * @throws com.evaluacion.usuarios.exception.InvalidSearchException sin ningún filtro, o con
+     *         {@code codigoCiudad} sin {@code codigoPais}
+     */
+    @Transactional(readOnly = true)
+    public Pagina search(com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro filtro, String cursor, Integer limit) {
+        var normalizado = new com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro(
+                normalizar(filtro.nombre()), normalizar(filtro.correo()),
+                normalizar(filtro.dominio() != null && filtro.dominio().startsWith("@") ? filtro.dominio().substring(1) : filtro.dominio()),
+                normalizar(filtro.codigoPais()), normalizar(filtro.codigoCiudad()));
+        if (normalizado.nombre() == null && normalizado.correo() == null && normalizado.dominio() == null
+                && normalizado.codigoPais() == null && normalizado.codigoCiudad() == null) {
+            throw new com.evaluacion.usuarios.exception.InvalidSearchException("Indique al menos un filtro: nombre, correo, dominio, codigoPais o codigoCiudad");
+        }
+        if (normalizado.codigoCiudad() != null && normalizado.codigoPais() == null) {
+            throw new com.evaluacion.usuarios.exception.InvalidSearchException("codigoCiudad requiere codigoPais");
+        }
+        int tamano = Math.min(limit != null && limit > 0 ? limit : defaultPageSize, maxPageSize);
+        UsuarioCursor desde = cursor == null || cursor.isBlank() ? null : UsuarioCursor.decode(cursor);
+        List<UsuarioResponse> usuarios = usuarioRepository.search(normalizado,
+                desde != null ? desde.creado() : null, desde != null ? desde.id() : null,
+                org.springframework.data.domain.Limit.of(tamano + 1));
+        return pagina(usuarios, tamano);
+    }
+
+    /**
+     * Usuarios activos que tienen el teléfono {@code (codigoPais, codigoCiudad, numero)}, con sus
+     * teléfonos, ordenados por fecha de creación y hasta {@code usuarios.page.max-size}.
+     *
+     * @throws com.evaluacion.usuarios.exception.InvalidSearchException si falta alguno de los tres
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResponse> findByTelefono(String codigoPais, String codigoCiudad, String numero) {
+        String pais = normalizar(codigoPais);
+        String ciudad = normalizar(codigoCiudad);
+        String telefono = normalizar(numero);
+        if (pais == null || ciudad == null || telefono == null) {
+            throw new com.evaluacion.usuarios.exception.InvalidSearchException("Indique codigoPais, codigoCiudad y numero");
+        }
+        return withTelefonos(usuarioRepository, usuarioRepository.findByTelefono(pais, ciudad, telefono,
+                org.springframework.data.domain.Limit.of(maxPageSize)));
+    }
+
+    private static String normalizar(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    /** Usuario por id para la API, leído por proyección (sin contraseña ni entidad administrada). */
+    @Transactional(readOnly = true)
+    public UsuarioResponse findResponseById(UUID id) {
+        return usuarioRepository.findResponseById(id)
+                .map(u -> withTelefonos(usuarioRepository, List.of(u)).get(0))
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario con id " + id + " no encontrado"));
+    }
+
+    @Transactional(readOnly = true)
     public Usuario findById(UUID id) {
         return usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario con id " + id + " no encontrado"));
     }
 
+    /**
+     * Versión actual del usuario (su ETag), sin leer el resto de columnas ni los teléfonos.
+     */
+    @Transactional(readOnly = true)
+    public long findVersion(UUID id) {
+        return usuarioRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario con id " + id + " no encontrado"));
+    }
+
+    /**
+     * Carga el usuario para modificarlo, aplicando antes el login diferido pendiente si lo hay,
+     * para que la escritura no lo pise y la rotación revoque el token realmente vigente.
+     *
+     * @param versionEsperada versión de {@code If-Match}, o {@code null} si la escritura no es condicional
+     * @throws com.evaluacion.usuarios.exception.PreconditionFailedException si la versión no coincide
+     */
+    private Usuario findForWrite(UUID id, Long versionEsperada) {
+        var pendiente = loginWriteBehind.take(id);
+        Usuario usuario = findById(id);
+        if (versionEsperada != null && usuario.getVersion() != versionEsperada) {
+            pendiente.ifPresent(p -> loginWriteBehind.restore(id, p));
+            throw new com.evaluacion.usuarios.exception.PreconditionFailedException("El usuario fue modificado por otra solicitud");
+        }
+        pendiente.ifPresent(p -> p.applyTo(usuario));
+        return usuario;
+    }
+
+    private record ClaveTelefono(String numero, String codigoCiudad, String codigoPais) {
+        static ClaveTelefono of(com.evaluacion.usuarios.model.Telefono t) {
+            return new ClaveTelefono(t.getNumero(), t.getCodigoCiudad(), t.getCodigoPais());
+        }
+    }
+
+    /**
+     * Deja en {@code usuario} exactamente los teléfonos de {@code nuevos}, comparando por
+     * {@code (numero, codigoCiudad, codigoPais)}: los existentes que coinciden se conservan (sin
+     * SQL), los que sobran se quitan (DELETE por orphanRemoval) y solo los que faltan se insertan.
+     * Los duplicados se cuentan: dos teléfonos iguales en el payload conservan dos filas.
+     */
+    private static void mergeTelefonos(Usuario usuario, List<com.evaluacion.usuarios.model.Telefono> nuevos) {
+        java.util.Map<ClaveTelefono, Integer> faltantes = new java.util.HashMap<>();
+        for (var t : nuevos) {
+            faltantes.merge(ClaveTelefono.of(t), 1, Integer::sum);
+        }
+        // Cada existente que coincide consume una ocurrencia del payload; el resto se elimina.
+        usuario.getTelefonos().removeIf(t -> !consume(faltantes, ClaveTelefono.of(t)));
+        for (var t : nuevos) {
+            if (consume(faltantes, ClaveTelefono.of(t))) {
+                t.setUsuario(usuario);
+                usuario.getTelefonos().add(t);
+            }
+        }
+    }
+
+    /** Descuenta una ocurrencia de {@code clave}; {@code false} si no quedaba ninguna. */
+    private static boolean consume(java.util.Map<ClaveTelefono, Integer> pendientes, ClaveTelefono clave) {
+        Integer n = pendientes.get(clave);
+        if (n == null) return false;
+        if (n == 1) {
+            pendientes.remove(clave);
+        } else {
+            pendientes.put(clave, n - 1);
+        }
+        return true;
+    }
+
     public Usuario create(Usuario usuario) {
-        if (usuario.getCorreo() != null && usuarioRepository.findByCorreo(usuario.getCorreo()).isPresent()) {
+        if (usuario.getCorreo() != null && correoIndex.mightExist(usuario.getCorreo())
+                && usuarioRepository.existsByCorreo(usuario.getCorreo())) {
             throw new com.evaluacion.usuarios.exception.EmailAlreadyRegisteredException("El correo ya está registrado");
         }
+        if (usuario.getId() == null) {
+            usuario.setId(UUID.randomUUID());
+        }
         LocalDateTime now = LocalDateTime.now();
         usuario.setCreado(now);
         usuario.setUltimoLogin(now);
@@ -71,34 +276,57 @@ public class UsuarioService {
 
             usuario.setContrasena(validateAndEncodePassword(usuario.getContrasena()));
         }
-        String token = jwtUtil.generateToken(usuario.getCorreo());
+        String token = jwtUtil.generateToken(usuario);
         usuario.setToken(token);
         if (usuario.getTelefonos() != null) {
             usuario.getTelefonos().forEach(t -> t.setUsuario(usuario));
         }
+        correoIndex.add(usuario.getCorreo());
         return usuarioRepository.save(usuario);
     }
 
     public Usuario replace(UUID id, Usuario datos) {
-        Usuario usuario = findById(id);
+        return replace(id, datos, null);
+    }
+
+    /**
+     * PUT completo. Con {@code versionEsperada} la escritura es condicional: si otra solicitud cambió
+     * el usuario, lanza {@link com.evaluacion.usuarios.exception.PreconditionFailedException}; si lo
+     * cambia entre la lectura y el UPDATE, el {@code @Version} hace fallar el commit.
+     */
+    public Usuario replace(UUID id, Usuario datos, Long versionEsperada) {
+        Usuario usuario = findForWrite(id, versionEsperada);
+        String correoAnterior = usuario.getCorreo();
+        boolean correoCambia = !java.util.Objects.equals(correoAnterior, datos.getCorreo());
         usuario.setNombre(datos.getNombre());
         usuario.setCorreo(datos.getCorreo());
         if (datos.getContrasena() != null) {
             usuario.setContrasena(validateAndEncodePassword(datos.getContrasena()));
-            usuario.setToken(jwtUtil.generateToken(usuario.getCorreo()));
         }
-
-        usuario.getTelefonos().clear();
-        if (datos.getTelefonos() != null) {
-            datos.getTelefonos().forEach(t -> t.setUsuario(usuario));
-            usuario.getTelefonos().addAll(datos.getTelefonos());
+        if (datos.getContrasena() != null || correoCambia) {
+            rotateToken(usuario);
         }
+        if (correoCambia) {
+            correoIndex.add(usuario.getCorreo());
+            correoIndex.removed(correoAnterior);
+        }
+
+        mergeTelefonos(usuario, datos.getTelefonos() != null ? datos.getTelefonos() : List.of());
         usuario.setModificado(LocalDateTime.now());
+        usuarioDetailsCache.evict(correoAnterior, usuario.getCorreo());
         return usuarioRepository.save(usuario);
     }
 
     public Usuario update(UUID id, Usuario datosParciales) {
-        Usuario usuarioExistente = findById(id);
+        return update(id, datosParciales, null);
+    }
+
+    /** PATCH parcial; {@code versionEsperada} como en {@link #replace(UUID, Usuario, Long)}. */
+    public Usuario update(UUID id, Usuario datosParciales, Long versionEsperada) {
+        Usuario usuarioExistente = findForWrite(id, versionEsperada);
+        String correoAnterior = usuarioExistente.getCorreo();
+        boolean correoCambia = datosParciales.getCorreo() != null
+                && !datosParciales.getCorreo().equals(usuarioExistente.getCorreo());
         if (datosParciales.getNombre() != null) {
             usuarioExistente.setNombre(datosParciales.getNombre());
         }
@@ -107,19 +335,80 @@ public class UsuarioService {
         }
         if (datosParciales.getContrasena() != null) {
             usuarioExistente.setContrasena(validateAndEncodePassword(datosParciales.getContrasena()));
-            usuarioExistente.setToken(jwtUtil.generateToken(usuarioExistente.getCorreo()));
+        }
+        if (datosParciales.getContrasena() != null || correoCambia) {
+            rotateToken(usuarioExistente);
+        }
+        if (correoCambia) {
+            correoIndex.add(usuarioExistente.getCorreo());
+            correoIndex.removed(correoAnterior);
         }
         if (datosParciales.getTelefonos() != null) {
-            usuarioExistente.getTelefonos().clear();
-            datosParciales.getTelefonos().forEach(t -> t.setUsuario(usuarioExistente));
-            usuarioExistente.getTelefonos().addAll(datosParciales.getTelefonos());
+            mergeTelefonos(usuarioExistente, datosParciales.getTelefonos());
         }
         usuarioExistente.setModificado(LocalDateTime.now());
+        usuarioDetailsCache.evict(correoAnterior, usuarioExistente.getCorreo());
         return usuarioRepository.save(usuarioExistente);
     }
 
     public void delete(UUID id) {
-        Usuario usuario = findById(id);
-        usuarioRepository.delete(usuario);
+        delete(id, null);
+    }
+
+    /**
+     * Borrado lógico ({@code activo = FALSE}) con un SELECT del id y un UPDATE, sin cargar la entidad; la fila y
+     * sus teléfonos los elimina después {@link UsuarioPurger}. {@code versionEsperada} como en
+     * {@link #replace(UUID, Usuario, Long)}.
+     */
+    public void delete(UUID id, Long versionEsperada) {
+        var pendiente = loginWriteBehind.take(id);
+        List<UsuarioRepository.UsuarioEliminado> eliminados = versionEsperada == null
+                ? usuarioRepository.deactivateAllById(List.of(id), LocalDateTime.now())
+                : usuarioRepository.deactivateByIdAndVersion(id, versionEsperada, LocalDateTime.now());
+        if (eliminados.isEmpty()) {
+            if (versionEsperada != null && usuarioRepository.findVersionById(id).isPresent()) {
+                pendiente.ifPresent(p -> loginWriteBehind.restore(id, p));
+                throw new com.evaluacion.usuarios.exception.PreconditionFailedException("El usuario fue modificado por otra solicitud");
+            }
+            throw new ResourceNotFoundException("Usuario con id " + id + " no encontrado");
+        }
+        afterDelete(eliminados.get(0), pendiente);
+    }
+
+    /**
+     * Borrado lógico de los usuarios activos de {@code ids} con un SELECT y un UPDATE por cada
+     * {@code usuarios.delete.chunk-size} ids; los que no existen se ignoran.
+     *
+     * @return ids efectivamente borrados
+     * @throws com.evaluacion.usuarios.exception.BatchTooLargeException si supera {@code usuarios.delete.max-size}
+     */
+    public List<UUID> deleteAll(java.util.Collection<UUID> ids) {
+        List<UUID> distintos = ids.stream().filter(java.util.Objects::nonNull).distinct().toList();
+        if (distintos.size() > maxDeleteSize) {
+            throw new com.evaluacion.usuarios.exception.BatchTooLargeException("Se pueden borrar como máximo " + maxDeleteSize + " usuarios por solicitud");
+        }
+        List<UUID> borrados = new java.util.ArrayList<>(distintos.size());
+        for (int desde = 0; desde < distintos.size(); desde += deleteChunkSize) {
+            List<UUID> grupo = distintos.subList(desde, Math.min(desde + deleteChunkSize, distintos.size()));
+            for (UsuarioRepository.UsuarioEliminado eliminado : usuarioRepository.deactivateAllById(grupo, LocalDateTime.now())) {
+                afterDelete(eliminado, loginWriteBehind.take(eliminado.id()));
+                borrados.add(eliminado.id());
+            }
+        }
+        return borrados;
+    }
+
+    /**
+     * Invalida las cachés (el UPDATE por JDBC no pasa por Hibernate) y revoca el token vigente (el del
+     * login pendiente si lo hay). El correo sigue reservado hasta la purga, así que el índice de
+     * correos y su natural id no cambian.
+     */
+    private void afterDelete(UsuarioRepository.UsuarioEliminado eliminado, java.util.Optional<LoginWriteBehind.Pendiente> pendiente) {
+        usuarioDetailsCache.evict(eliminado.correo());
+        usuarioEntityCache.evict(eliminado.id());
+        String token = pendiente.map(LoginWriteBehind.Pendiente::token).orElse(eliminado.token());
+        if (token != null) {
+            tokenRevocationIndex.revoke(token);
+        }
     }
 }
@@ -6,15 +6,50 @@ CREATE TABLE IF NOT EXISTS usuarios (
   creado TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
   modificado TIMESTAMP,
   ultimo_login TIMESTAMP,
+  token VARCHAR(1024),
   activo BOOLEAN DEFAULT TRUE NOT NULL,
+  version BIGINT DEFAULT 0 NOT NULL,
+  -- Columnas de búsqueda calculadas por la base (H2 no indexa expresiones): nombre en minúsculas para
+  -- el prefijo sin distinguir mayúsculas y dominio del correo para la coincidencia por dominio.
+  nombre_busqueda VARCHAR(255) GENERATED ALWAYS AS (LOWER(nombre)),
+  correo_dominio VARCHAR(255) GENERATED ALWAYS AS (LOWER(SUBSTRING(correo FROM LOCATE('@', correo) + 1))),
   CONSTRAINT ux_usuarios_correo UNIQUE (correo)
 );
 
+-- activo primero: el listado (activo = TRUE) y la purga (activo = FALSE) recorren solo su parte del índice.
+CREATE INDEX IF NOT EXISTS ix_usuarios_activo_creado_id ON usuarios (activo, creado, id);
+
+-- GET /api/usuarios/search: prefijo de nombre (rango de nombre_busqueda) y dominio del correo. También
+-- con activo primero: si no, H2 estima muy selectivo activo = TRUE y prefiere ix_usuarios_activo_creado_id.
+CREATE INDEX IF NOT EXISTS ix_usuarios_nombre_busqueda ON usuarios (activo, nombre_busqueda);
+CREATE INDEX IF NOT EXISTS ix_usuarios_correo_dominio ON usuarios (activo, correo_dominio);
+
+-- INCREMENT BY debe coincidir con Telefono.ID_ALLOCATION_SIZE. El alta en lote reserva bloques como
+-- Hibernate; los INSERT sin id (data.sql) toman un valor completo, que Hibernate nunca reutiliza.
+CREATE SEQUENCE IF NOT EXISTS telefonos_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS telefonos (
-  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  id BIGINT DEFAULT NEXT VALUE FOR telefonos_seq PRIMARY KEY,
   numero VARCHAR(255) NOT NULL,
   codigo_ciudad VARCHAR(50) NOT NULL,
   codigo_pais VARCHAR(50) NOT NULL,
-  usuario_id UUID,
-  CONSTRAINT fk_telefono_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE
+  usuario_id UUID
 );
+
+-- Teléfonos de un usuario (lecturas y ON DELETE CASCADE). Se crea antes de la FK para que H2 la use
+-- en lugar de crear un índice propio sin nombre.
+CREATE INDEX IF NOT EXISTS ix_telefonos_usuario_id ON telefonos (usuario_id);
+
+ALTER TABLE telefonos ADD CONSTRAINT IF NOT EXISTS fk_telefono_usuario
+  FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE;
+
+-- Dueños de un número (GET /api/usuarios/telefono) y búsqueda por país (y ciudad) del teléfono. Incluye
+-- usuario_id para resolver ambas consultas solo con el índice.
+CREATE INDEX IF NOT EXISTS ix_telefonos_pais_ciudad_numero ON telefonos (codigo_pais, codigo_ciudad, numero, usuario_id);
+
+CREATE TABLE IF NOT EXISTS tokens_revocados (
+  firma VARCHAR(32) PRIMARY KEY,
+  expira TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_tokens_revocados_expira ON tokens_revocados (expira);
@@ -0,0 +1,117 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.service.CorreoIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de {@link CorreoIndex#mightExist} con 10M correos registrados. El índice se carga por
+ * su camino normal ({@code rebuild}) desde un {@link JdbcTemplate} que genera las filas; durante el
+ * setup se imprime la memoria del filtro, el tiempo de carga y la tasa de falsos positivos medida.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@State(Scope.Benchmark)
+public class CorreoIndexBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param("10000000")
+    private int correos;
+
+    private CorreoIndex index;
+    private String[] registrados;
+    private String[] desconocidos;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new CorreoIndex(new GeneratedUsuarios(correos), new SimpleMeterRegistry(), true, correos, 0.01);
+        long start = System.nanoTime();
+        index.rebuild();
+        long cargaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        registrados = new String[PROBES];
+        desconocidos = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            registrados[i] = correo((int) ((long) i * correos / PROBES));
+            desconocidos[i] = "desconocido." + i + "@otro-dominio.org";
+        }
+        int falsosPositivos = 0;
+        int sondas = 1_000_000;
+        for (int i = 0; i < sondas; i++) {
+            if (index.mightExist("sonda" + i + "@ejemplo.net")) falsosPositivos++;
+        }
+        System.out.printf("%ncorreos=%d memoriaFiltro=%.1f MiB (%.1f bits/correo) carga=%d ms fpr=%.3f%%%n",
+                correos, index.estimatedMemoryBytes() / 1048576.0, index.estimatedMemoryBytes() * 8.0 / correos,
+                cargaMs, falsosPositivos * 100.0 / sondas);
+    }
+
+    private static String correo(int i) {
+        return "usuario" + i + "@dominio" + (i % 97) + ".com";
+    }
+
+    @Benchmark
+    public boolean mightExistRegistered() {
+        return index.mightExist(registrados[cursor++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean mightExistUnknown() {
+        return index.mightExist(desconocidos[cursor++ & (PROBES - 1)]);
+    }
+
+    /** Simula {@code SELECT correo FROM usuarios} con {@code n} filas generadas al vuelo. */
+    private static final class GeneratedUsuarios extends JdbcTemplate {
+
+        private final int n;
+
+        GeneratedUsuarios(int n) {
+            this.n = n;
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return requiredType.cast((long) n);
+        }
+
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            int[] fila = {0};
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("getString")) return correo(fila[0]);
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+            try {
+                for (; fila[0] < n; fila[0]++) {
+                    rch.processRow(rs);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
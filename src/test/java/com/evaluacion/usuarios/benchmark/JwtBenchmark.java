@@ -0,0 +1,146 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.security.JwtClaims;
+import com.evaluacion.usuarios.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la ruta del filtro JWT (validar + extraer sub) y la emisión de tokens
+ * entre la implementación anterior de {@code JwtUtil} y el códec de una sola pasada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "9f8e7d6c5b4a3928171605f4e3d2c1b0a9f8e7d6c5b4a3928171605f4e3d2c1b0";
+    private static final String USERNAME = "juan@rodriguez.org";
+
+    private JwtUtil jwtUtil;
+    private LegacyJwtUtil legacy;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3600000);
+        legacy = new LegacyJwtUtil(SECRET, 3600000);
+        token = jwtUtil.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public void legacyValidateAndGetUsername(Blackhole bh) {
+        bh.consume(legacy.validateToken(token));
+        bh.consume(legacy.getUsername(token));
+    }
+
+    @Benchmark
+    public JwtClaims codecVerifyAndParse() {
+        return jwtUtil.verifyAndParse(token);
+    }
+
+    @Benchmark
+    public String legacyGenerateToken() {
+        return legacy.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public String codecGenerateToken() {
+        return jwtUtil.generateToken(USERNAME);
+    }
+
+    /** Copia de la implementación previa al códec, usada solo como línea base. */
+    static final class LegacyJwtUtil {
+
+        private final byte[] secretBytes;
+        private final long expirationMs;
+
+        LegacyJwtUtil(String secret, long expirationMs) {
+            this.secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+            this.expirationMs = expirationMs;
+        }
+
+        String generateToken(String username) {
+            Date now = new Date();
+            Date expiry = new Date(now.getTime() + expirationMs);
+            try {
+                ObjectMapper om = new ObjectMapper();
+                Map<String, Object> header = new HashMap<>();
+                header.put("alg", "HS256");
+                header.put("typ", "JWT");
+
+                Map<String, Object> payload = new HashMap<>();
+                payload.put("sub", username);
+                payload.put("iat", now.getTime());
+                payload.put("exp", expiry.getTime());
+
+                String encodedHeader = Base64.getUrlEncoder().withoutPadding().encodeToString(om.writeValueAsString(header).getBytes(StandardCharsets.UTF_8));
+                String encodedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(om.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8));
+
+                String signingInput = encodedHeader + "." + encodedPayload;
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(secretBytes, "HmacSHA256"));
+                byte[] sig = mac.doFinal(signingInput.getBytes(StandardCharsets.UTF_8));
+                return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sig);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        String getUsername(String token) {
+            try {
+                String[] parts = token.split("\\.");
+                if (parts.length != 3) return null;
+                String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+                Map<?, ?> payload = new ObjectMapper().readValue(payloadJson, Map.class);
+                Object sub = payload.get("sub");
+                return sub != null ? sub.toString() : null;
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+
+        boolean validateToken(String token) {
+            try {
+                String[] parts = token.split("\\.");
+                if (parts.length != 3) return false;
+                String signingInput = parts[0] + "." + parts[1];
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(secretBytes, "HmacSHA256"));
+                byte[] expected = mac.doFinal(signingInput.getBytes(StandardCharsets.UTF_8));
+                byte[] provided = Base64.getUrlDecoder().decode(parts[2]);
+                if (!java.security.MessageDigest.isEqual(expected, provided)) return false;
+
+                String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+                Map<?, ?> payload = new ObjectMapper().readValue(payloadJson, Map.class);
+                Object expObj = payload.get("exp");
+                if (expObj == null) return false;
+                return System.currentTimeMillis() <= Long.parseLong(expObj.toString());
+            } catch (Exception ex) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.exception.TooManyRequestsException;
+import com.evaluacion.usuarios.security.LoginThrottle;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por intento de login fallido bajo tráfico de ataque: sin limitador, cada intento
+ * paga un BCrypt completo; con {@link LoginThrottle}, tras agotar los buckets los intentos se
+ * rechazan antes del hash. {@code acquireContended} mide el limitador solo, con un hilo por CPU.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginThrottleBenchmark {
+
+    private static final String VICTIMA = "victima@example.com";
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+    private LoginThrottle throttle;
+    private String[] ips;
+    private String[] correos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(10);
+        hash = encoder.encode("Correcta1A");
+        throttle = new LoginThrottle(true, 5, 5, 20, 60, 3, Duration.ofSeconds(1), Duration.ofMinutes(15),
+                100_000, Duration.ofMinutes(30), new SimpleMeterRegistry());
+        ips = new String[256];
+        for (int i = 0; i < ips.length; i++) ips[i] = "203.0.113." + i;
+        correos = new String[4096];
+        for (int i = 0; i < correos.length; i++) correos[i] = "usuario" + i + "@example.com";
+    }
+
+    /** Credential stuffing contra un correo desde 256 IPs, sin limitador. */
+    @Benchmark
+    public boolean attackWithoutThrottle() {
+        return encoder.matches("Incorrecta1A", hash);
+    }
+
+    /** El mismo tráfico con el limitador evaluado antes del hash. */
+    @Benchmark
+    public boolean attackWithThrottle() {
+        String ip = ips[ThreadLocalRandom.current().nextInt(ips.length)];
+        try {
+            throttle.acquire(VICTIMA, ip);
+        } catch (TooManyRequestsException e) {
+            return false;
+        }
+        boolean ok = encoder.matches("Incorrecta1A", hash);
+        throttle.onFailure(VICTIMA, ip);
+        return ok;
+    }
+
+    /** Solo el limitador, con muchas claves y un hilo por CPU compitiendo. */
+    @Benchmark
+    @Threads(Threads.MAX)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean acquireContended() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            throttle.acquire(correos[random.nextInt(correos.length)], ips[random.nextInt(ips.length)]);
+            return true;
+        } catch (TooManyRequestsException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.security.PasswordPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validación de una contraseña: la ruta anterior ({@code Pattern.compile} de la regex con
+ * lookaheads en cada alta o cambio), la misma regex precompilada y {@link PasswordPolicy}.
+ * La entrada inválida no tiene mayúscula, así que la regex recorre toda la cadena antes de fallar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordPolicyBenchmark {
+
+    private static final String REGEX_ANTERIOR =
+            "^(?=.{8,}$)(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)[A-Za-z0-9.@_/!*&#$%^(){}\\[\\]:-]{8,}$";
+
+    @Param({"valida", "invalida"})
+    public String entrada;
+
+    private String password;
+    private Pattern precompilada;
+    private PasswordPolicy policy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        password = "valida".equals(entrada) ? "Hunter2024.segura" : "hunter2024.segura";
+        precompilada = Pattern.compile(REGEX_ANTERIOR);
+        policy = PasswordPolicy.defaults(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public boolean regexCompiledPerCall() {
+        return Pattern.compile(REGEX_ANTERIOR).matcher(password).matches();
+    }
+
+    @Benchmark
+    public boolean regexPrecompiled() {
+        return precompilada.matcher(password).matches();
+    }
+
+    @Benchmark
+    public boolean policy() {
+        return policy.violation(password).isEmpty();
+    }
+}
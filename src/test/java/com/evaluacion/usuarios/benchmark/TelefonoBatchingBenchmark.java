@@ -0,0 +1,174 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.UsuariosApiApplication;
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alta y reemplazo de un usuario con {@code telefonos} teléfonos sobre el contexto Spring completo
+ * con H2, con {@code hibernate.jdbc.batch_size} 1 (un INSERT por viaje, como con IDENTITY) y 50
+ * (secuencia pooled + batches). Al final imprime sentencias preparadas y viajes a la base
+ * ({@code execute*}, un {@code executeBatch} cuenta uno) por operación, medidos con un proxy del
+ * {@link DataSource}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TelefonoBatchingBenchmark {
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    @Param({"20"})
+    public int telefonos;
+
+    private final AtomicLong sentencias = new AtomicLong();
+    private final AtomicLong viajes = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UsuarioService usuarioService;
+    private UUID reemplazado;
+    private long secuencia;
+    private long operaciones;
+    private String medida;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UsuariosApiApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof DataSource ds ? contar(ds) : bean;
+                    }
+                }))
+                .run("--server.port=0",
+                        "--security.password.hashing.bcrypt.strength=4",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--spring.jpa.properties.hibernate.show-sql=false",
+                        "--spring.datasource.url=jdbc:h2:mem:telefono-batching-bench;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--logging.level.com.evaluacion.usuarios=WARN");
+        usuarioService = context.getBean(UsuarioService.class);
+        reemplazado = usuarioService.create(usuario()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetContadores() {
+        sentencias.set(0);
+        viajes.set(0);
+        operaciones = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void imprimirContadores() {
+        if (operaciones > 0) {
+            System.out.printf("%n%s batch_size=%d: %.1f sentencias, %.1f viajes por operación%n", medida, jdbcBatchSize,
+                    (double) sentencias.get() / operaciones, (double) viajes.get() / operaciones);
+        }
+    }
+
+    private Usuario usuario() {
+        long n = secuencia++;
+        Usuario u = new Usuario("Usuario " + n, "usuario" + n + "@example.com", "Password" + n);
+        u.setTelefonos(nuevosTelefonos());
+        return u;
+    }
+
+    private List<Telefono> nuevosTelefonos() {
+        List<Telefono> lista = new ArrayList<>(telefonos);
+        for (int i = 0; i < telefonos; i++) {
+            lista.add(new Telefono(String.valueOf(secuencia * 1000 + i), "1", "57"));
+        }
+        return lista;
+    }
+
+    @Benchmark
+    public Usuario create() {
+        medida = "create";
+        operaciones++;
+        return usuarioService.create(usuario());
+    }
+
+    /** Reemplaza todos los teléfonos: {@code telefonos} DELETE y {@code telefonos} INSERT. */
+    @Benchmark
+    public Usuario replace() {
+        medida = "replace";
+        operaciones++;
+        Usuario datos = new Usuario();
+        datos.setNombre("Reemplazo " + secuencia++);
+        datos.setCorreo("usuario0@example.com");
+        datos.setTelefonos(nuevosTelefonos());
+        return usuarioService.replace(reemplazado, datos);
+    }
+
+    private DataSource contar(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (resultado, metodo) -> metodo.equals("getConnection")
+                ? proxy(Connection.class, (Connection) resultado, (r, m) -> {
+                    if (m.startsWith("prepare") || m.equals("createStatement")) {
+                        sentencias.incrementAndGet();
+                        Class<? extends Statement> tipo = r instanceof PreparedStatement
+                                ? PreparedStatement.class : Statement.class;
+                        return proxy(tipo, r, (r2, m2) -> {
+                            if (m2.startsWith("execute")) viajes.incrementAndGet();
+                            return r2;
+                        });
+                    }
+                    return r;
+                })
+                : resultado);
+    }
+
+    private interface Interceptor {
+        Object after(Object resultado, String metodo);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, Object destino, Interceptor interceptor) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (p, metodo, args) -> {
+            try {
+                return interceptor.after(metodo.invoke(destino, args), metodo.getName());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.security.RevokedTokenSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de {@link RevokedTokenSet#contains} con 1M tokens revocados.
+ * Durante el setup imprime la memoria estimada y la tasa de falsos positivos
+ * medida sobre 1M tokens no revocados.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@State(Scope.Benchmark)
+public class TokenRevocationBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param("1000000")
+    private int revokedTokens;
+
+    private RevokedTokenSet set;
+    private String[] revoked;
+    private String[] valid;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        set = new RevokedTokenSet(revokedTokens, 0.01);
+        revoked = new String[PROBES];
+        long exp = System.currentTimeMillis() + 3600000;
+
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        for (int i = 0; i < revokedTokens; i++) {
+            String token = randomToken(random);
+            set.add(RevokedTokenSet.idOf(token), exp);
+            if (i < PROBES) revoked[i] = token;
+        }
+        System.gc();
+        long after = rt.totalMemory() - rt.freeMemory();
+
+        int bloomPositives = 0;
+        int exactPositives = 0;
+        int probes = 1_000_000;
+        valid = new String[PROBES];
+        for (int i = 0; i < probes; i++) {
+            String token = randomToken(random);
+            RevokedTokenSet.TokenId id = RevokedTokenSet.idOf(token);
+            if (set.mightContain(id)) bloomPositives++;
+            if (set.contains(id)) exactPositives++;
+            if (i < PROBES) valid[i] = token;
+        }
+        System.out.printf("%nrevocados=%d memoriaEstimada=%.1f MiB heapMedido=%.1f MiB fprBloom=%.4f%% falsosPositivosFinales=%d/%d%n",
+                set.size(), set.estimatedMemoryBytes() / 1048576.0, (after - before) / 1048576.0,
+                bloomPositives * 100.0 / probes, exactPositives, probes);
+    }
+
+    @Benchmark
+    public boolean containsValidToken() {
+        return set.contains(RevokedTokenSet.idOf(valid[cursor++ & (PROBES - 1)]));
+    }
+
+    @Benchmark
+    public boolean containsRevokedToken() {
+        return set.contains(RevokedTokenSet.idOf(revoked[cursor++ & (PROBES - 1)]));
+    }
+
+    private static String randomToken(SplittableRandom random) {
+        byte[] sig = new byte[32];
+        random.nextBytes(sig);
+        return "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ4In0." + Base64.getUrlEncoder().withoutPadding().encodeToString(sig);
+    }
+}
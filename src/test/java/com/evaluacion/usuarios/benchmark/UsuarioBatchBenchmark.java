@@ -0,0 +1,96 @@
+package com.evaluacion.usuarios.benchmark;
+
+import com.evaluacion.usuarios.UsuariosApiApplication;
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.service.UsuarioBatchService;
+import com.evaluacion.usuarios.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta de {@code usuarios} usuarios con un teléfono cada uno: N llamadas a
+ * {@link UsuarioService#create} (lo que hace cada {@code POST /api/usuarios}, sin la capa HTTP)
+ * frente a una llamada a {@link UsuarioBatchService#createAll}, sobre el contexto Spring completo
+ * con H2. BCrypt usa costo 4 para que el resultado refleje consultas, inserts y transacciones;
+ * con el costo real el hash domina y la diferencia depende de cuántas CPU tenga el pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioBatchBenchmark {
+
+    @Param({"500"})
+    public int usuarios;
+
+    private ConfigurableApplicationContext context;
+    private UsuarioService usuarioService;
+    private UsuarioBatchService usuarioBatchService;
+    private long secuencia;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UsuariosApiApplication.class)
+                .run("--server.port=0",
+                        "--security.password.hashing.bcrypt.strength=4",
+                        "--spring.jpa.properties.hibernate.show-sql=false",
+                        "--spring.datasource.url=jdbc:h2:mem:usuario-batch-bench;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--logging.level.com.evaluacion.usuarios=WARN");
+        usuarioService = context.getBean(UsuarioService.class);
+        usuarioBatchService = context.getBean(UsuarioBatchService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private List<Usuario> lote() {
+        List<Usuario> lote = new ArrayList<>(usuarios);
+        for (int i = 0; i < usuarios; i++) {
+            long n = secuencia++;
+            Usuario u = new Usuario("Usuario " + n, "usuario" + n + "@example.com", "Password" + n);
+            u.setTelefonos(new ArrayList<>(List.of(new Telefono(String.valueOf(1_000_000 + n), "1", "57"))));
+            lote.add(u);
+        }
+        return lote;
+    }
+
+    @Benchmark
+    public int singleCreates() {
+        int creados = 0;
+        for (Usuario u : lote()) {
+            usuarioService.create(u);
+            creados++;
+        }
+        return creados;
+    }
+
+    @Benchmark
+    public int batchCreate() {
+        return usuarioBatchService.createAll(lote()).size();
+    }
+}
@@ -0,0 +1,101 @@
+package com.evaluacion.usuarios.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una página de 50 usuarios a distintas profundidades del listado (H2, 200k filas con el
+ * índice {@code ix_usuarios_creado_id}): OFFSET recorre y descarta las filas anteriores, así que
+ * su costo crece con la profundidad; el keyset busca la posición en el índice y no.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioPageBenchmark {
+
+    private static final int FILAS = 200_000;
+    private static final int PAGINA = 50;
+
+    @Param({"0", "10000", "190000"})
+    public int profundidad;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Timestamp cursorCreado;
+    private UUID cursorId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Sin OPTIMIZE_REUSE_RESULTS=FALSE, H2 devuelve el resultado anterior de la misma consulta y
+        // ambos métodos miden solo la caché.
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:usuario-page-bench;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE usuarios (id UUID PRIMARY KEY, nombre VARCHAR(255) NOT NULL, "
+                + "correo VARCHAR(255) NOT NULL UNIQUE, creado TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX ix_usuarios_creado_id ON usuarios (creado, id)");
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Object[]> filas = new ArrayList<>(10_000);
+        for (int i = 0; i < FILAS; i++) {
+            // Cada 4 usuarios comparten creado, como en altas masivas del mismo instante.
+            filas.add(new Object[]{UUID.randomUUID(), "Usuario " + i, "usuario" + i + "@example.com",
+                    Timestamp.valueOf(base.plusSeconds(i / 4))});
+            if (filas.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO usuarios (id, nombre, correo, creado) VALUES (?, ?, ?, ?)", filas);
+                filas.clear();
+            }
+        }
+        if (profundidad > 0) {
+            Map<String, Object> ultimo = jdbcTemplate.queryForMap(
+                    "SELECT creado, id FROM usuarios ORDER BY creado, id LIMIT 1 OFFSET ?", profundidad - 1);
+            cursorCreado = (Timestamp) ultimo.get("CREADO");
+            cursorId = (UUID) ultimo.get("ID");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offset() {
+        return jdbcTemplate.queryForList("SELECT id, nombre, correo, creado FROM usuarios "
+                + "ORDER BY creado, id LIMIT ? OFFSET ?", PAGINA, profundidad);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> keyset() {
+        if (cursorId == null) {
+            return jdbcTemplate.queryForList("SELECT id, nombre, correo, creado FROM usuarios "
+                    + "ORDER BY creado, id LIMIT ?", PAGINA);
+        }
+        return jdbcTemplate.queryForList("SELECT id, nombre, correo, creado FROM usuarios "
+                + "WHERE creado >= ? AND (creado > ? OR id > ?) ORDER BY creado, id LIMIT ?",
+                cursorCreado, cursorCreado, cursorId, PAGINA);
+    }
+}
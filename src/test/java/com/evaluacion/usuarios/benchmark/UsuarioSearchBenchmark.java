@@ -0,0 +1,123 @@
+package com.evaluacion.usuarios.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Las consultas de {@code GET /api/usuarios/search} (el SQL que genera
+ * {@code UsuarioSearchRepositoryImpl}, página de 50) sobre H2 con el {@code schema.sql} real y 1M
+ * usuarios con un teléfono cada uno, con y sin los índices de búsqueda. Al iniciar imprime el plan
+ * de cada consulta ({@code EXPLAIN}): con índices cada filtro recorre solo su rango; sin ellos,
+ * la tabla completa.
+ * <p>
+ * Datos: nombre {@code Usuario <n>} (el prefijo {@code usuario 12345} coincide con 11), 10.000
+ * dominios de correo (100 usuarios cada uno) y 100 × 100 pares país/ciudad (100 usuarios cada uno).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class UsuarioSearchBenchmark {
+
+    private static final int USUARIOS = 1_000_000;
+    private static final int PAGINA = 50;
+
+    private static final String SELECT = "SELECT u.id, u.nombre, u.correo, u.creado FROM usuarios u WHERE u.activo = TRUE";
+    private static final String ORDEN = " ORDER BY u.creado, u.id FETCH FIRST " + (PAGINA + 1) + " ROWS ONLY";
+    private static final String POR_NOMBRE = SELECT
+            + " AND u.nombre_busqueda >= ? AND u.nombre_busqueda < ?" + ORDEN;
+    private static final String POR_DOMINIO = SELECT + " AND u.correo_dominio = ?" + ORDEN;
+    private static final String POR_TELEFONO = SELECT + " AND u.id IN (SELECT t.usuario_id FROM telefonos t "
+            + "WHERE t.codigo_pais = ? AND t.codigo_ciudad = ?)" + ORDEN;
+
+    @Param({"true", "false"})
+    public boolean indices;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Sin OPTIMIZE_REUSE_RESULTS=FALSE, H2 devuelve el resultado anterior de la misma consulta.
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:usuario-search-bench;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ScriptUtils.executeSqlScript(dataSource.getConnection(), new ClassPathResource("schema.sql"));
+        if (!indices) {
+            jdbcTemplate.execute("DROP INDEX ix_usuarios_nombre_busqueda");
+            jdbcTemplate.execute("DROP INDEX ix_usuarios_correo_dominio");
+            jdbcTemplate.execute("DROP INDEX ix_telefonos_pais_ciudad_numero");
+        }
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Object[]> usuarios = new ArrayList<>(10_000);
+        List<Object[]> telefonos = new ArrayList<>(10_000);
+        for (int i = 0; i < USUARIOS; i++) {
+            UUID id = UUID.randomUUID();
+            usuarios.add(new Object[]{id, "Usuario " + i, "usuario" + i + "@dominio" + (i % 10_000) + ".com",
+                    Timestamp.valueOf(base.plusSeconds(i))});
+            telefonos.add(new Object[]{String.valueOf(i), String.valueOf(i / 100 % 100), String.valueOf(i % 100), id});
+            if (usuarios.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO usuarios (id, nombre, correo, contrasena, creado) VALUES (?, ?, ?, 'x', ?)", usuarios);
+                jdbcTemplate.batchUpdate("INSERT INTO telefonos (numero, codigo_ciudad, codigo_pais, usuario_id) VALUES (?, ?, ?, ?)", telefonos);
+                usuarios.clear();
+                telefonos.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+        System.out.println();
+        System.out.println("indices=" + indices);
+        explain(POR_NOMBRE, "usuario 12345", "usuario 12345" + Character.MAX_VALUE);
+        explain(POR_DOMINIO, "dominio4242.com");
+        explain(POR_TELEFONO, "57", "12");
+    }
+
+    private void explain(String sql, Object... args) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+        System.out.println(plan.replaceAll("\\s+", " "));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> nombre() {
+        return jdbcTemplate.queryForList(POR_NOMBRE, "usuario 12345", "usuario 12345" + Character.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> dominio() {
+        return jdbcTemplate.queryForList(POR_DOMINIO, "dominio4242.com");
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> telefono() {
+        return jdbcTemplate.queryForList(POR_TELEFONO, "57", "12");
+    }
+}
@@ -0,0 +1,155 @@
+package com.evaluacion.usuarios.repository;
+
+import com.evaluacion.usuarios.dto.UsuarioResponse;
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.datasource.url=jdbc:h2:mem:usuario-repository;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UsuarioRepositoryTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysetPages_shouldWalkAllUsuariosInCreadoIdOrderIncludingTies() {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i < 11; i++) {
+            // Varios usuarios comparten creado: el id desempata.
+            Usuario u = new Usuario(UUID.randomUUID(), "U" + i, "u" + i + "@example.com", "x", base.plusSeconds(i / 4));
+            usuarioRepository.save(u);
+        }
+        usuarioRepository.flush();
+
+        List<Usuario> esperados = new ArrayList<>(usuarioRepository.findAll());
+        // H2 compara UUID sin signo, como su forma textual (UUID.compareTo usa long con signo).
+        esperados.sort(Comparator.comparing(Usuario::getCreado).thenComparing(u -> u.getId().toString()));
+
+        List<UsuarioResponse> recorridos = new ArrayList<>(usuarioRepository.findFirstPage(Limit.of(3)));
+        while (true) {
+            UsuarioResponse ultimo = recorridos.get(recorridos.size() - 1);
+            List<UsuarioResponse> pagina = usuarioRepository.findPageAfter(ultimo.creado(), ultimo.id(), Limit.of(3));
+            if (pagina.isEmpty()) break;
+            assertThat(pagina).hasSizeLessThanOrEqualTo(3);
+            recorridos.addAll(pagina);
+        }
+
+        assertThat(recorridos).extracting(UsuarioResponse::id).containsExactlyElementsOf(
+                esperados.stream().map(Usuario::getId).toList());
+    }
+
+    @Test
+    void keysetQuery_shouldUseActivoCreadoIdIndex() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT id FROM usuarios "
+                + "WHERE activo = TRUE AND creado >= TIMESTAMP '2030-01-01 00:00:00' "
+                + "AND (creado > TIMESTAMP '2030-01-01 00:00:00' OR id > RANDOM_UUID()) "
+                + "ORDER BY creado, id LIMIT 51", String.class);
+
+        assertThat(plan).containsIgnoringCase("IX_USUARIOS_ACTIVO_CREADO_ID");
+    }
+
+    private Usuario usuario(String nombre, String correo, int segundos, String... telefonos) {
+        Usuario u = new Usuario(UUID.randomUUID(), nombre, correo, "x", LocalDateTime.of(2031, 1, 1, 0, 0).plusSeconds(segundos));
+        List<Telefono> lista = new ArrayList<>();
+        for (String telefono : telefonos) {
+            String[] paisCiudad = telefono.split("-");
+            Telefono t = new Telefono("5550" + lista.size(), paisCiudad[1], paisCiudad[0]);
+            t.setUsuario(u);
+            lista.add(t);
+        }
+        u.setTelefonos(lista);
+        return usuarioRepository.save(u);
+    }
+
+    private List<String> buscar(UsuarioSearchRepository.Filtro filtro) {
+        return usuarioRepository.search(filtro, null, null, Limit.of(10)).stream().map(UsuarioResponse::nombre).toList();
+    }
+
+    @Test
+    void search_shouldCombineFiltersOverActiveUsuariosInCreadoOrder() {
+        Usuario zoe = usuario("Zoe Martinez", "zoe@Busqueda.test", 1, "991-1");
+        usuario("ZOILA Paz", "zoila@otro.test", 2, "992-2", "991-9");
+        usuario("Bruno", "bruno@busqueda.test", 3, "991-2");
+        Usuario borrado = usuario("Zorro", "zorro@busqueda.test", 4, "991-1");
+        borrado.setActivo(false);
+        usuarioRepository.flush();
+
+        assertThat(buscar(new UsuarioSearchRepository.Filtro("zo", null, null, null, null)))
+                .containsExactly("Zoe Martinez", "ZOILA Paz");
+        assertThat(buscar(new UsuarioSearchRepository.Filtro("Zo%", null, null, null, null))).isEmpty();
+        assertThat(buscar(new UsuarioSearchRepository.Filtro(null, "bruno@busqueda.test", null, null, null)))
+                .containsExactly("Bruno");
+        assertThat(buscar(new UsuarioSearchRepository.Filtro(null, null, "BUSQUEDA.test", null, null)))
+                .containsExactly("Zoe Martinez", "Bruno");
+        assertThat(buscar(new UsuarioSearchRepository.Filtro(null, null, null, "991", null)))
+                .containsExactly("Zoe Martinez", "ZOILA Paz", "Bruno");
+        // País y ciudad deben ser del mismo teléfono: ZOILA tiene 992-2 y 991-9.
+        assertThat(buscar(new UsuarioSearchRepository.Filtro(null, null, null, "991", "2")))
+                .containsExactly("Bruno");
+        assertThat(buscar(new UsuarioSearchRepository.Filtro("zo", null, "busqueda.test", "991", "1")))
+                .containsExactly("Zoe Martinez");
+
+        List<UsuarioResponse> siguiente = usuarioRepository.search(new UsuarioSearchRepository.Filtro("zo", null, null, null, null),
+                zoe.getCreado(), zoe.getId(), Limit.of(10));
+        assertThat(siguiente).extracting(UsuarioResponse::nombre).containsExactly("ZOILA Paz");
+    }
+
+    @Test
+    void searchQueries_shouldUseTheirIndexes() {
+        String select = "EXPLAIN SELECT id FROM usuarios WHERE activo = TRUE AND ";
+        String orden = " ORDER BY creado, id LIMIT 51";
+
+        assertThat(jdbcTemplate.queryForObject(select + "nombre_busqueda >= 'zo' AND nombre_busqueda < 'zp'" + orden, String.class))
+                .containsIgnoringCase("IX_USUARIOS_NOMBRE_BUSQUEDA");
+        assertThat(jdbcTemplate.queryForObject(select + "correo_dominio = 'busqueda.test'" + orden, String.class))
+                .containsIgnoringCase("IX_USUARIOS_CORREO_DOMINIO");
+        assertThat(jdbcTemplate.queryForObject(select + "id IN (SELECT usuario_id FROM telefonos "
+                + "WHERE codigo_pais = '991' AND codigo_ciudad = '1')" + orden, String.class))
+                .containsIgnoringCase("IX_TELEFONOS_PAIS_CIUDAD_NUMERO");
+    }
+
+    @Test
+    void findByTelefono_shouldReturnActiveOwnersOfThatExactNumber() {
+        Usuario primero = usuario("Primero", "primero@telefono.test", 1, "993-2");
+        Usuario segundo = usuario("Segundo", "segundo@telefono.test", 2, "993-2");
+        usuario("Otra ciudad", "otra@telefono.test", 3, "993-3");
+        usuario("Borrado", "borrado@telefono.test", 4, "993-2").setActivo(false);
+        usuarioRepository.flush();
+
+        // usuario(...) numera los teléfonos de cada usuario desde 55500.
+        assertThat(usuarioRepository.findByTelefono("993", "2", "55500", Limit.of(10)))
+                .extracting(UsuarioResponse::id).containsExactly(primero.getId(), segundo.getId());
+        assertThat(usuarioRepository.findByTelefono("993", "2", "55501", Limit.of(10))).isEmpty();
+    }
+
+    @Test
+    void telefonoQueries_shouldUseTheirIndexes() {
+        assertThat(jdbcTemplate.queryForObject("EXPLAIN SELECT id FROM usuarios WHERE activo = TRUE AND id IN "
+                + "(SELECT usuario_id FROM telefonos WHERE codigo_pais = '993' AND codigo_ciudad = '2' AND numero = '55500') "
+                + "ORDER BY creado, id", String.class))
+                .containsIgnoringCase("IX_TELEFONOS_PAIS_CIUDAD_NUMERO")
+                .doesNotContainIgnoringCase("TELEFONOS.tableScan");
+        assertThat(jdbcTemplate.queryForObject("EXPLAIN SELECT numero FROM telefonos WHERE usuario_id = RANDOM_UUID()", String.class))
+                .containsIgnoringCase("IX_TELEFONOS_USUARIO_ID");
+    }
+}
@@ -0,0 +1,103 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SimpleMeterRegistry registry;
+    private BoundedPasswordEncoder encoder;
+
+    /** Delegado que bloquea hasta {@code release} para simular hashes lentos. */
+    private final PasswordEncoder slowDelegate = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "{hash}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (encoder != null) encoder.close();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRunOnPoolAndRecordLatency() {
+        release.countDown();
+        encoder = new BoundedPasswordEncoder(slowDelegate, 1, 1, Duration.ofSeconds(1), Duration.ofSeconds(1), registry);
+
+        String hash = encoder.encode("Secret1A");
+
+        assertEquals("{hash}Secret1A", hash);
+        assertTrue(encoder.matches("Secret1A", hash));
+        assertEquals(1, registry.get("password.hashing.latency").tag("operation", "encode").timer().count());
+        assertEquals(1, registry.get("password.hashing.latency").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_WhenQueueIsFull_ShouldRejectImmediately() throws Exception {
+        encoder = new BoundedPasswordEncoder(slowDelegate, 1, 1, Duration.ofSeconds(5), Duration.ofSeconds(3), registry);
+        CompletableFuture<String> running = encoder.encodeAsync("a");
+        CompletableFuture<String> queued = encoder.encodeAsync("b");
+
+        long start = System.nanoTime();
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> encoder.encode("c"));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(1, encoder.queueDepth());
+        assertEquals(1.0, registry.get("password.hashing.queue.depth").gauge().value());
+        assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("{hash}a", running.get(1, TimeUnit.SECONDS));
+        assertEquals("{hash}b", queued.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void matches_WhenWaitExceedsMaxWait_ShouldFailWithServiceBusy() {
+        encoder = new BoundedPasswordEncoder(slowDelegate, 1, 4, Duration.ofMillis(50), Duration.ofSeconds(1), registry);
+
+        assertThrows(ServiceBusyException.class, () -> encoder.matches("a", "{hash}a"));
+        assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void encodeAsync_WhenQueueIsFull_ShouldReturnFailedFuture() {
+        encoder = new BoundedPasswordEncoder(slowDelegate, 1, 1, Duration.ofSeconds(5), Duration.ofSeconds(1), registry);
+        encoder.encodeAsync("a");
+        encoder.encodeAsync("b");
+
+        CompletableFuture<String> rejected = encoder.encodeAsync("c");
+
+        assertTrue(rejected.isCompletedExceptionally());
+    }
+}
@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,7 +14,10 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +33,9 @@ class JwtAuthenticationFilterTest {
     @Mock
     private UserDetailsService userDetailsService;
 
+    @Mock
+    private TokenRevocationIndex tokenRevocationIndex;
+
     @Mock
     private HttpServletRequest request;
 
@@ -40,7 +45,6 @@ class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     private static final String TEST_USERNAME = "testuser@example.com";
@@ -50,6 +54,13 @@ class JwtAuthenticationFilterTest {
     @BeforeEach
     void setUp() {
         SecurityContextHolder.clearContext();
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofHours(1), new SimpleMeterRegistry());
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, cache, tokenRevocationIndex, false);
+    }
+
+    private static JwtClaims claimsFor(String username) {
+        long now = System.currentTimeMillis();
+        return new JwtClaims(username, now, now + 3600000);
     }
 
     @Test
@@ -141,8 +152,7 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithValidToken_ShouldSetAuthentication() throws ServletException, IOException {
         String authHeader = "Bearer " + VALID_TOKEN;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtUtil.getUsername(VALID_TOKEN)).thenReturn(TEST_USERNAME);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
 
         UserDetails userDetails = User.builder()
                 .username(TEST_USERNAME)
@@ -163,14 +173,14 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithInvalidToken_ShouldNotSetAuthentication() throws ServletException, IOException {
         String authHeader = "Bearer " + INVALID_TOKEN;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.validateToken(INVALID_TOKEN)).thenReturn(false);
+        when(jwtUtil.verifyAndParse(INVALID_TOKEN)).thenReturn(null);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication(), 
             "Authentication should NOT be set for invalid token");
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil, never()).getUsername(anyString());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
 
     @Test
@@ -182,7 +192,7 @@ class JwtAuthenticationFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication(), 
             "Authentication should NOT be set without Authorization header");
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).verifyAndParse(anyString());
     }
 
     @Test
@@ -194,7 +204,7 @@ class JwtAuthenticationFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication(), 
             "Authentication should NOT be set for invalid Authorization format");
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).verifyAndParse(anyString());
     }
 
     @Test
@@ -212,8 +222,7 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithValidTokenButNullUsername_ShouldNotSetAuthentication() throws ServletException, IOException {
         String authHeader = "Bearer " + VALID_TOKEN;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtUtil.getUsername(VALID_TOKEN)).thenReturn(null);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(null));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -227,8 +236,7 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithExistingAuthentication_ShouldNotOverride() throws ServletException, IOException {
         String authHeader = "Bearer " + VALID_TOKEN;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtUtil.getUsername(VALID_TOKEN)).thenReturn(TEST_USERNAME);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
 
         UserDetails existingUser = User.builder()
                 .username("existing@example.com")
@@ -261,8 +269,7 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithValidToken_ShouldSetAuthenticationDetails() throws ServletException, IOException {
         String authHeader = "Bearer " + VALID_TOKEN;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtUtil.getUsername(VALID_TOKEN)).thenReturn(TEST_USERNAME);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
 
         UserDetails userDetails = User.builder()
                 .username(TEST_USERNAME)
@@ -278,4 +285,111 @@ class JwtAuthenticationFilterTest {
             "Authentication details should be set");
         verify(filterChain).doFilter(request, response);
     }
+
+    @Test
+    void doFilterInternal_WithRepeatedValidToken_ShouldVerifySignatureOnlyOnce() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
+        UserDetails userDetails = User.builder()
+                .username(TEST_USERNAME)
+                .password("password")
+                .authorities(Collections.emptyList())
+                .build();
+        when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(userDetails);
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertEquals(TEST_USERNAME, SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(jwtUtil, times(1)).verifyAndParse(VALID_TOKEN);
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithDisabledUser_ShouldNotSetAuthentication() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
+        UserDetails userDetails = User.builder()
+                .username(TEST_USERNAME)
+                .password("password")
+                .disabled(true)
+                .authorities(Collections.emptyList())
+                .build();
+        when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(userDetails);
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication(),
+            "Authentication should NOT be set for a disabled user");
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithRevokedToken_ShouldNotSetAuthentication() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
+        when(tokenRevocationIndex.isRevoked(VALID_TOKEN)).thenReturn(true);
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication(),
+            "Authentication should NOT be set for a revoked token");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_StatelessMode_ShouldBuildPrincipalFromClaimsWithoutLookup() throws ServletException, IOException {
+        JwtAuthenticationFilter stateless = new JwtAuthenticationFilter(jwtUtil, userDetailsService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, new SimpleMeterRegistry()), tokenRevocationIndex, true);
+        long now = System.currentTimeMillis();
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(
+                new JwtClaims(TEST_USERNAME, "11111111-1111-1111-1111-111111111111", java.util.List.of("ROLE_USER"), true, now, now + 60000));
+
+        stateless.doFilterInternal(request, response, filterChain);
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        assertEquals(TEST_USERNAME, auth.getName());
+        assertInstanceOf(JwtPrincipal.class, auth.getPrincipal());
+        assertEquals("ROLE_USER", auth.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilterInternal_StatelessModeWithInactiveUser_ShouldNotSetAuthentication() throws ServletException, IOException {
+        JwtAuthenticationFilter stateless = new JwtAuthenticationFilter(jwtUtil, userDetailsService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, new SimpleMeterRegistry()), tokenRevocationIndex, true);
+        long now = System.currentTimeMillis();
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(
+                new JwtClaims(TEST_USERNAME, "11111111-1111-1111-1111-111111111111", java.util.List.of("ROLE_USER"), false, now, now + 60000));
+
+        stateless.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_StatelessModeWithLegacyToken_ShouldFallBackToUserDetails() throws ServletException, IOException {
+        JwtAuthenticationFilter stateless = new JwtAuthenticationFilter(jwtUtil, userDetailsService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, new SimpleMeterRegistry()), tokenRevocationIndex, true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
+        when(jwtUtil.verifyAndParse(VALID_TOKEN)).thenReturn(claimsFor(TEST_USERNAME));
+        UserDetails userDetails = User.builder()
+                .username(TEST_USERNAME)
+                .password("password")
+                .authorities(Collections.emptyList())
+                .build();
+        when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(userDetails);
+
+        stateless.doFilterInternal(request, response, filterChain);
+
+        assertEquals(TEST_USERNAME, SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(userDetailsService).loadUserByUsername(TEST_USERNAME);
+    }
 }
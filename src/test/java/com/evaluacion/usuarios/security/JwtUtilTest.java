@@ -178,4 +178,82 @@ class JwtUtilTest {
         assertEquals(specialUsername, extractedUsername, 
             "Special characters in username should be preserved");
     }
+
+    @Test
+    void verifyAndParse_ShouldReturnClaimsForValidToken() {
+        long before = System.currentTimeMillis();
+        String token = jwtUtil.generateToken(TEST_USERNAME);
+
+        JwtClaims claims = jwtUtil.verifyAndParse(token);
+
+        assertNotNull(claims);
+        assertEquals(TEST_USERNAME, claims.subject());
+        assertTrue(claims.issuedAt() >= before);
+        assertEquals(claims.issuedAt() + TEST_EXPIRATION_MS, claims.expiresAt());
+    }
+
+    @Test
+    void verifyAndParse_ShouldReturnNullForTamperedPayload() {
+        String token = jwtUtil.generateToken(TEST_USERNAME);
+        String[] parts = token.split("\\.");
+        String otherPayload = jwtUtil.generateToken("attacker@example.com").split("\\.")[1];
+
+        assertNull(jwtUtil.verifyAndParse(parts[0] + "." + otherPayload + "." + parts[2]));
+    }
+
+    @Test
+    void verifyAndParse_ShouldPreserveEscapedCharactersInSubject() {
+        String username = "quote\"back\\slash\u00f1@example.com";
+
+        JwtClaims claims = jwtUtil.verifyAndParse(jwtUtil.generateToken(username));
+
+        assertNotNull(claims);
+        assertEquals(username, claims.subject());
+    }
+
+    @Test
+    void verifyAndParse_ShouldAcceptTokensWithAnyClaimOrderAndUnknownClaims() throws Exception {
+        long now = System.currentTimeMillis();
+        String header = base64Url("{\"typ\":\"JWT\",\"alg\":\"HS256\"}");
+        String payload = base64Url("{ \"exp\": " + (now + 60000) + ", \"extra\": {\"a\": [1, \"}\"]}, \"iat\": " + now
+                + ", \"sub\": \"" + TEST_USERNAME + "\" }");
+        javax.crypto.Mac mac = javax.crypto.Mac.getInstance("HmacSHA256");
+        mac.init(new javax.crypto.spec.SecretKeySpec(TEST_SECRET.getBytes(java.nio.charset.StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal((header + "." + payload).getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+
+        JwtClaims claims = jwtUtil.verifyAndParse(header + "." + payload + "." + signature);
+
+        assertNotNull(claims);
+        assertEquals(TEST_USERNAME, claims.subject());
+        assertEquals(now, claims.issuedAt());
+    }
+
+    @Test
+    void generateToken_ForUsuario_ShouldEmbedPrincipalClaims() {
+        var usuario = new com.evaluacion.usuarios.model.Usuario(
+                java.util.UUID.fromString("11111111-1111-1111-1111-111111111111"), "Juan", TEST_USERNAME, "hash", null);
+
+        JwtClaims claims = jwtUtil.verifyAndParse(jwtUtil.generateToken(usuario));
+
+        assertNotNull(claims);
+        assertTrue(claims.hasPrincipalClaims());
+        assertEquals(TEST_USERNAME, claims.subject());
+        assertEquals("11111111-1111-1111-1111-111111111111", claims.userId());
+        assertEquals(java.util.List.of("ROLE_USER"), claims.roles());
+        assertEquals(Boolean.TRUE, claims.activo());
+    }
+
+    @Test
+    void verifyAndParse_LegacyToken_ShouldNotHavePrincipalClaims() {
+        JwtClaims claims = jwtUtil.verifyAndParse(jwtUtil.generateToken(TEST_USERNAME));
+
+        assertNotNull(claims);
+        assertFalse(claims.hasPrincipalClaims());
+    }
+
+    private static String base64Url(String json) {
+        return java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(json.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
 }
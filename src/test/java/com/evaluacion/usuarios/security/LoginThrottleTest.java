@@ -0,0 +1,178 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private LoginThrottle throttle(int correoCapacity, int ipCapacity, long maximumKeys) {
+        return new LoginThrottle(true,
+                new LoginThrottle.Limits(correoCapacity, 6), new LoginThrottle.Limits(ipCapacity, 60),
+                3, Duration.ofSeconds(1), Duration.ofMinutes(15), maximumKeys, Duration.ofMinutes(30),
+                registry, now::get);
+    }
+
+    private void advance(Duration d) {
+        now.addAndGet(d.toNanos());
+    }
+
+    @Test
+    void acquire_ShouldRejectWhenCorreoBucketIsEmptyAndRefillOverTime() {
+        LoginThrottle throttle = throttle(2, 100, 1000);
+        throttle.acquire("user@example.com", "10.0.0.1");
+        throttle.acquire("USER@example.com ", "10.0.0.2");
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("user@example.com", "10.0.0.3"));
+        assertEquals(10, ex.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("rate.limit.hits").tag("key", "correo").counter().count());
+
+        advance(Duration.ofSeconds(10));
+        throttle.acquire("user@example.com", "10.0.0.3");
+    }
+
+    @Test
+    void acquire_ShouldRejectWhenIpBucketIsEmpty() {
+        LoginThrottle throttle = throttle(100, 3, 1000);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("other@example.com", "10.0.0.1"));
+        throttle.acquire("other@example.com", "10.0.0.2");
+        assertEquals(1.0, registry.get("rate.limit.hits").tag("key", "ip").counter().count());
+        assertEquals(5.0, registry.get("auth.login.attempts").counter().count());
+    }
+
+    @Test
+    void onFailure_ShouldBackOffExponentiallyAfterFreeFailures() {
+        LoginThrottle throttle = throttle(100, 100, 1000);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("victim@example.com", null);
+            throttle.onFailure("victim@example.com", null);
+        }
+        throttle.acquire("victim@example.com", null);
+        throttle.onFailure("victim@example.com", null);
+
+        assertEquals(1, assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("victim@example.com", null)).getRetryAfterSeconds());
+        advance(Duration.ofSeconds(1));
+        throttle.acquire("victim@example.com", null);
+        throttle.onFailure("victim@example.com", null);
+
+        assertEquals(2, assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("victim@example.com", null)).getRetryAfterSeconds());
+        assertEquals(5.0, registry.get("auth.login.failures").counter().count());
+    }
+
+    @Test
+    void onSuccess_ShouldResetCorreoFailures() {
+        LoginThrottle throttle = throttle(100, 100, 1000);
+        for (int i = 0; i < 3; i++) {
+            throttle.onFailure("user@example.com", null);
+        }
+        throttle.onSuccess("user@example.com");
+        throttle.onFailure("user@example.com", null);
+
+        throttle.acquire("user@example.com", null);
+    }
+
+    @Test
+    void failures_ShouldBeForgottenAfterBackoffMax() {
+        LoginThrottle throttle = throttle(100, 100, 1000);
+        for (int i = 0; i < 3; i++) {
+            throttle.onFailure("shared@example.com", "10.0.0.1");
+        }
+        advance(Duration.ofMinutes(16));
+        throttle.onFailure("shared@example.com", "10.0.0.1");
+
+        throttle.acquire("shared@example.com", "10.0.0.1");
+    }
+
+    @Test
+    void keys_ShouldBeBounded() {
+        LoginThrottle throttle = throttle(5, 5, 100);
+        for (int i = 0; i < 10_000; i++) {
+            throttle.acquire("user" + i + "@example.com", "10.0." + (i >> 8) + "." + (i & 255));
+        }
+
+        assertTrue(throttle.trackedKeys() <= 200, "claves: " + throttle.trackedKeys());
+    }
+
+    @Test
+    void concurrentAttempts_ShouldNeverGrantMoreThanCapacity() throws Exception {
+        int capacity = 50;
+        LoginThrottle throttle = throttle(capacity, 1_000_000, 1000);
+        int threads = 16;
+        int perThread = 2_000;
+        AtomicInteger granted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        try {
+                            throttle.acquire("victim@example.com", "10.0.0." + id);
+                            granted.incrementAndGet();
+                        } catch (TooManyRequestsException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(capacity, granted.get());
+        assertEquals(threads * perThread - capacity, rejected.get());
+        assertEquals(threads * perThread, registry.get("auth.login.attempts").counter().count());
+    }
+
+    @Test
+    void disabled_ShouldOnlyCountAttempts() {
+        LoginThrottle throttle = new LoginThrottle(false,
+                new LoginThrottle.Limits(1, 1), new LoginThrottle.Limits(1, 1),
+                0, Duration.ofSeconds(1), Duration.ofMinutes(1), 10, Duration.ofMinutes(1), registry, now::get);
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user@example.com", "10.0.0.1");
+            throttle.onFailure("user@example.com", "10.0.0.1");
+        }
+
+        assertEquals(10.0, registry.get("auth.login.attempts").counter().count());
+        assertEquals(10.0, registry.get("auth.login.failures").counter().count());
+    }
+}
@@ -0,0 +1,88 @@
+package com.evaluacion.usuarios.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncodersTest {
+
+    private static PasswordEncoders.Settings settings(String algorithm, int bcryptStrength) {
+        return new PasswordEncoders.Settings(algorithm, bcryptStrength, 16, 32, 1, 1024, 1, 1000);
+    }
+
+    @Test
+    void encode_ShouldPrefixWithConfiguredAlgorithm() {
+        for (String algorithm : new String[]{"bcrypt", "argon2", "pbkdf2"}) {
+            PasswordEncoder encoder = PasswordEncoders.delegating(settings(algorithm, 4));
+
+            String hash = encoder.encode("Secret1A");
+
+            assertTrue(hash.startsWith("{" + algorithm + "}"), hash);
+            assertTrue(encoder.matches("Secret1A", hash));
+            assertFalse(encoder.matches("Otra1A", hash));
+            assertFalse(encoder.upgradeEncoding(hash));
+        }
+    }
+
+    @Test
+    void legacyUnprefixedBcrypt_ShouldMatchAndRequestUpgrade() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(settings("bcrypt", 4));
+        String legacy = new BCryptPasswordEncoder(4).encode("Secret1A");
+
+        assertTrue(encoder.matches("Secret1A", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void seededNoopPassword_ShouldMatchAndRequestUpgrade() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(settings("bcrypt", 4));
+
+        assertTrue(encoder.matches("hunter2", "{noop}hunter2"));
+        assertTrue(encoder.upgradeEncoding("{noop}hunter2"));
+    }
+
+    @Test
+    void unprefixedPlaintext_ShouldNotMatch() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(settings("bcrypt", 4));
+
+        assertFalse(encoder.matches("hunter2", "hunter2"));
+    }
+
+    @Test
+    void weakerBcryptStrength_ShouldRequestUpgrade() {
+        String weak = PasswordEncoders.delegating(settings("bcrypt", 4)).encode("Secret1A");
+        PasswordEncoder stronger = PasswordEncoders.delegating(settings("bcrypt", 5));
+
+        assertTrue(stronger.matches("Secret1A", weak));
+        assertTrue(stronger.upgradeEncoding(weak));
+    }
+
+    @Test
+    void otherAlgorithm_ShouldStillMatchAndRequestUpgrade() {
+        String argon = PasswordEncoders.delegating(settings("argon2", 4)).encode("Secret1A");
+        PasswordEncoder bcrypt = PasswordEncoders.delegating(settings("bcrypt", 4));
+
+        assertTrue(bcrypt.matches("Secret1A", argon));
+        assertTrue(bcrypt.upgradeEncoding(argon));
+    }
+
+    @Test
+    void unsupportedAlgorithm_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> PasswordEncoders.delegating(settings("md5", 4)));
+        assertThrows(IllegalArgumentException.class, () -> PasswordEncoders.delegating(settings("noop", 4)));
+    }
+
+    @Test
+    void calibrate_ShouldNotGoBelowMinimumAndRespectTarget() {
+        PasswordEncoders.Settings calibrated = PasswordEncoders.calibrate(settings("bcrypt", 12), Duration.ofMillis(1), 4, 1000);
+
+        assertEquals(4, calibrated.bcryptStrength());
+
+        PasswordEncoders.Settings pbkdf2 = PasswordEncoders.calibrate(settings("pbkdf2", 4), Duration.ofMillis(20), 4, 1000);
+        assertTrue(pbkdf2.pbkdf2Iterations() >= 1000);
+    }
+}
@@ -0,0 +1,97 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.exception.PasswordInvalidException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordPolicyTest {
+
+    private static final String REGEX_ANTERIOR =
+            "^(?=.{8,}$)(?=.*[A-Z])(?=.*[a-z])(?=.*\\d)[A-Za-z0-9.@_/!*&#$%^(){}\\[\\]:-]{8,}$";
+
+    private SimpleMeterRegistry registry;
+    private PasswordPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        policy = PasswordPolicy.defaults(registry);
+    }
+
+    @Test
+    void violation_reportsFirstFailedRule() {
+        assertEquals(Optional.empty(), policy.violation("Password1!"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.LONGITUD), policy.violation("Pass1"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.MAYUSCULA), policy.violation("password1"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.MINUSCULA), policy.violation("PASSWORD1"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.DIGITO), policy.violation("Password!"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.CARACTER_NO_PERMITIDO), policy.violation("Password1 "));
+        assertEquals(Optional.of(PasswordPolicy.Regla.CARACTER_NO_PERMITIDO), policy.violation("Contraseña1"));
+    }
+
+    @Test
+    void validate_throwsRuleMessageAndCountsFailure() {
+        PasswordInvalidException ex = assertThrows(PasswordInvalidException.class, () -> policy.validate("password1"));
+        assertEquals("La contraseña debe tener al menos una mayúscula", ex.getMessage());
+        assertEquals(1.0, registry.get("password.validation.failures").tag("regla", "mayuscula").counter().count());
+        assertDoesNotThrow(() -> policy.validate("Hunter123."));
+    }
+
+    @Test
+    void defaultRules_matchPreviousRegex() {
+        Pattern anterior = Pattern.compile(REGEX_ANTERIOR);
+        String alfabeto = "aZ9.-@_/!*&#$%^(){}[]: ~ñ\n";
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int largo = random.nextInt(14);
+            for (int j = 0; j < largo; j++) {
+                char c = alfabeto.charAt(random.nextInt(alfabeto.length()));
+                // Variar letras y dígitos para cubrir todas las clases.
+                if (c == 'a') c = (char) ('a' + random.nextInt(26));
+                if (c == 'Z') c = (char) ('A' + random.nextInt(26));
+                if (c == '9') c = (char) ('0' + random.nextInt(10));
+                sb.append(c);
+            }
+            String pw = sb.toString();
+            assertEquals(anterior.matcher(pw).matches(), policy.violation(pw).isEmpty(), pw);
+        }
+    }
+
+    @Test
+    void previousDefaultRegex_usesBuiltInRules() {
+        PasswordPolicy legacy = new PasswordPolicy(REGEX_ANTERIOR, 8, true, true, true,
+                ".-@_/!*&#$%^(){}[]:", "Mensaje", registry);
+
+        assertEquals(Optional.of(PasswordPolicy.Regla.DIGITO), legacy.violation("Password!"));
+    }
+
+    @Test
+    void customRegex_usesPatternAndConfiguredMessage() {
+        PasswordPolicy custom = new PasswordPolicy("^\\d{6}$", 8, true, true, true,
+                ".-@_/!*&#$%^(){}[]:", "Debe ser un PIN de 6 dígitos", registry);
+
+        assertEquals(Optional.empty(), custom.violation("123456"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.PATRON), custom.violation("Password1!"));
+        PasswordInvalidException ex = assertThrows(PasswordInvalidException.class, () -> custom.validate("12345"));
+        assertEquals("Debe ser un PIN de 6 dígitos", ex.getMessage());
+    }
+
+    @Test
+    void configuredRules_areApplied() {
+        PasswordPolicy relajada = new PasswordPolicy("", 12, false, true, false, "", null, registry);
+
+        assertEquals(Optional.empty(), relajada.violation("abcdefghijkl"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.LONGITUD), relajada.violation("abcdefghijk"));
+        assertEquals(Optional.of(PasswordPolicy.Regla.CARACTER_NO_PERMITIDO), relajada.violation("abcdefghijk!"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PasswordPolicy("", 8, true, true, true, "ñ", null, registry));
+    }
+}
@@ -0,0 +1,113 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.model.TokenRevocado;
+import com.evaluacion.usuarios.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationIndexTest {
+
+    @Mock
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil("test-secret-key-for-unit-testing", 3600000);
+        index = new TokenRevocationIndex(tokenRevocadoRepository, jwtUtil, new SimpleMeterRegistry(),
+                true, 1000, 0.01, 3600000);
+    }
+
+    @Test
+    void revoke_ShouldMarkTokenRevokedAndPersistSignaturePrefix() {
+        String token = jwtUtil.generateToken("user@example.com");
+        String other = jwtUtil.generateToken("other@example.com");
+
+        index.revoke(token);
+
+        assertTrue(index.isRevoked(token));
+        assertFalse(index.isRevoked(other));
+        ArgumentCaptor<TokenRevocado> captor = ArgumentCaptor.forClass(TokenRevocado.class);
+        verify(tokenRevocadoRepository).save(captor.capture());
+        assertEquals(RevokedTokenSet.signaturePrefix(token), captor.getValue().getFirma());
+        assertTrue(captor.getValue().getExpira().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void revokeInMemory_ShouldMarkTokenRevokedAndReturnRowWithoutPersisting() {
+        String token = jwtUtil.generateToken("user@example.com");
+
+        TokenRevocado fila = index.revokeInMemory(token);
+
+        assertTrue(index.isRevoked(token));
+        assertEquals(RevokedTokenSet.signaturePrefix(token), fila.getFirma());
+        assertTrue(fila.getExpira().isAfter(LocalDateTime.now()));
+        verifyNoInteractions(tokenRevocadoRepository);
+    }
+
+    @Test
+    void isRevoked_ShouldIgnoreMalformedTokens() {
+        assertFalse(index.isRevoked(null));
+        assertFalse(index.isRevoked("sin-puntos"));
+        assertFalse(index.isRevoked("a.b.corta"));
+    }
+
+    @Test
+    void revoke_ExpiredToken_ShouldBeIgnored() throws InterruptedException {
+        JwtUtil shortLived = new JwtUtil("test-secret-key-for-unit-testing", 1);
+        String token = shortLived.generateToken("user@example.com");
+        Thread.sleep(20);
+
+        index.revoke(token);
+
+        verify(tokenRevocadoRepository, never()).save(any());
+        assertFalse(index.isRevoked(token));
+    }
+
+    @Test
+    void load_ShouldRestorePersistedRevocations() {
+        String token = jwtUtil.generateToken("user@example.com");
+        TokenRevocado persisted = new TokenRevocado(RevokedTokenSet.signaturePrefix(token), LocalDateTime.now().plusMinutes(30));
+        when(tokenRevocadoRepository.findTop5000ByExpiraAfterAndFirmaGreaterThanOrderByFirma(any(), anyString()))
+                .thenReturn(List.of(persisted));
+
+        index.load();
+
+        assertTrue(index.isRevoked(token));
+    }
+
+    @Test
+    void revokedTokenSet_ShouldHaveNoFalseNegativesAndPurgeExpiredEntries() {
+        RevokedTokenSet set = new RevokedTokenSet(100, 0.01);
+        long now = System.currentTimeMillis();
+        List<String> vigentes = new java.util.ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String token = jwtUtil.generateToken("user" + i + "@example.com");
+            set.add(RevokedTokenSet.idOf(token), i % 2 == 0 ? now + 60000 : now - 1);
+            if (i % 2 == 0) vigentes.add(token);
+        }
+
+        assertEquals(5000, set.size());
+        int removed = set.purgeExpired(now);
+
+        assertEquals(2500, removed);
+        assertEquals(2500, set.size());
+        vigentes.forEach(t -> assertTrue(set.contains(RevokedTokenSet.idOf(t))));
+    }
+}
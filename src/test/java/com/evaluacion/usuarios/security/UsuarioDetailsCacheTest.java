@@ -0,0 +1,98 @@
+package com.evaluacion.usuarios.security;
+
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioDetailsCacheTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private SimpleMeterRegistry registry;
+    private UsuarioDetailsCache cache;
+    private UsuarioDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new UsuarioDetailsCache(true, 100, Duration.ofMinutes(5), registry);
+        service = new UsuarioDetailsService(usuarioRepository, cache);
+    }
+
+    private static Usuario usuario(String correo, String hash) {
+        return new Usuario(UUID.randomUUID(), "Nombre", correo, hash, null);
+    }
+
+    @Test
+    void loadUserByUsername_SecondCall_ShouldNotHitRepository() {
+        when(usuarioRepository.findByCorreo("user@example.com")).thenReturn(Optional.of(usuario("user@example.com", "HASH")));
+
+        UserDetails first = service.loadUserByUsername("user@example.com");
+        UserDetails second = service.loadUserByUsername("user@example.com");
+
+        verify(usuarioRepository, times(1)).findByCorreo("user@example.com");
+        assertEquals("HASH", second.getPassword());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", UsuarioDetailsCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", UsuarioDetailsCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void evict_ShouldForceReloadWithFreshData() {
+        when(usuarioRepository.findByCorreo("user@example.com"))
+                .thenReturn(Optional.of(usuario("user@example.com", "OLD")))
+                .thenReturn(Optional.of(usuario("user@example.com", "NEW")));
+
+        service.loadUserByUsername("user@example.com");
+        cache.evict("user@example.com");
+
+        assertEquals("NEW", service.loadUserByUsername("user@example.com").getPassword());
+    }
+
+    @Test
+    void loadUserByUsername_UnknownUser_ShouldNotBeCached() {
+        when(usuarioRepository.findByCorreo("ghost@example.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost@example.com"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost@example.com"));
+
+        verify(usuarioRepository, times(2)).findByCorreo("ghost@example.com");
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void loadUserByUsername_InactiveUser_ShouldBeDisabled() {
+        Usuario inactivo = usuario("off@example.com", "HASH");
+        inactivo.setActivo(false);
+        when(usuarioRepository.findByCorreo("off@example.com")).thenReturn(Optional.of(inactivo));
+
+        assertFalse(service.loadUserByUsername("off@example.com").isEnabled());
+    }
+
+    @Test
+    void disabledCache_ShouldAlwaysHitRepository() {
+        service = new UsuarioDetailsService(usuarioRepository, new UsuarioDetailsCache(false, 100, Duration.ofMinutes(5), registry));
+        when(usuarioRepository.findByCorreo("user@example.com")).thenReturn(Optional.of(usuario("user@example.com", "HASH")));
+
+        service.loadUserByUsername("user@example.com");
+        service.loadUserByUsername("user@example.com");
+
+        verify(usuarioRepository, times(2)).findByCorreo("user@example.com");
+    }
+}
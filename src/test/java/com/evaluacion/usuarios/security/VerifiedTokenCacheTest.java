@@ -0,0 +1,96 @@
+package com.evaluacion.usuarios.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private SimpleMeterRegistry registry;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        verifications = new AtomicInteger();
+    }
+
+    private Function<String, JwtClaims> verifierReturning(JwtClaims claims) {
+        return token -> {
+            verifications.incrementAndGet();
+            return claims;
+        };
+    }
+
+    private static JwtClaims claimsExpiringIn(long millis) {
+        long now = System.currentTimeMillis();
+        return new JwtClaims("user@example.com", now, now + millis);
+    }
+
+    @Test
+    void resolve_SecondCallForSameToken_ShouldSkipVerifier() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofHours(1), registry);
+        JwtClaims claims = claimsExpiringIn(60000);
+
+        assertSame(claims, cache.resolve(TOKEN, verifierReturning(claims)));
+        assertSame(claims, cache.resolve(TOKEN, verifierReturning(claims)));
+
+        assertEquals(1, verifications.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", VerifiedTokenCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", VerifiedTokenCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void resolve_InvalidToken_ShouldNotBeCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofHours(1), registry);
+
+        assertNull(cache.resolve(TOKEN, verifierReturning(null)));
+        assertNull(cache.resolve(TOKEN, verifierReturning(null)));
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void resolve_EntryPastTokenExpiration_ShouldNotBeServed() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofHours(1), registry);
+        JwtClaims claims = claimsExpiringIn(20);
+
+        cache.resolve(TOKEN, verifierReturning(claims));
+        Thread.sleep(50);
+
+        assertNull(cache.resolve(TOKEN, verifierReturning(null)));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void resolve_WhenDisabled_ShouldAlwaysCallVerifier() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 100, Duration.ofHours(1), registry);
+        JwtClaims claims = claimsExpiringIn(60000);
+
+        cache.resolve(TOKEN, verifierReturning(claims));
+        cache.resolve(TOKEN, verifierReturning(claims));
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void invalidate_ShouldForceVerificationOnNextResolve() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofHours(1), registry);
+        JwtClaims claims = claimsExpiringIn(60000);
+
+        cache.resolve(TOKEN, verifierReturning(claims));
+        cache.invalidate(TOKEN);
+        cache.resolve(TOKEN, verifierReturning(claims));
+
+        assertEquals(2, verifications.get());
+    }
+}
@@ -1,23 +1,39 @@
 package com.evaluacion.usuarios.service;
 
+import com.evaluacion.usuarios.exception.ServiceBusyException;
+import com.evaluacion.usuarios.exception.TooManyRequestsException;
 import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.repository.TokenRevocadoRepository;
 import com.evaluacion.usuarios.repository.UsuarioRepository;
 import com.evaluacion.usuarios.security.JwtUtil;
+import com.evaluacion.usuarios.security.LoginThrottle;
+import com.evaluacion.usuarios.security.TokenRevocationIndex;
+import com.evaluacion.usuarios.security.UsuarioDetailsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,16 +48,29 @@ class AuthenticationServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    @Mock
+    private UsuarioDetailsCache usuarioDetailsCache;
+
+    @Mock
+    private LoginWriteBehind loginWriteBehind;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    @Mock
+    private CorreoIndex correoIndex;
+
     @InjectMocks
     private AuthenticationService authenticationService;
 
-    @Captor
-    private ArgumentCaptor<Usuario> usuarioCaptor;
-
     private Usuario existingUser;
 
     @BeforeEach
     void setUp() {
+        lenient().when(correoIndex.mightExist(anyString())).thenReturn(true);
         existingUser = new Usuario();
         existingUser.setCorreo("user@mail.com");
         existingUser.setContrasena("ENCODED");
@@ -54,16 +83,14 @@ class AuthenticationServiceTest {
     void login_success_returnsToken_andPersists() {
         when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
         when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
-        when(jwtUtil.generateToken("user@mail.com")).thenReturn("jwt-token");
+        when(jwtUtil.generateToken(existingUser)).thenReturn("jwt-token");
 
         String token = authenticationService.login("user@mail.com", "raw");
 
         assertThat(token).isEqualTo("jwt-token");
-        verify(jwtUtil).generateToken("user@mail.com");
-        verify(usuarioRepository).save(usuarioCaptor.capture());
-        Usuario saved = usuarioCaptor.getValue();
-        assertThat(saved.getToken()).isEqualTo("jwt-token");
-        assertThat(saved.getUltimoLogin()).isNotNull();
+        verify(jwtUtil).generateToken(existingUser);
+        verify(loginWriteBehind).writeNow(eq(existingUser.getId()), any(LocalDateTime.class), eq("jwt-token"), isNull());
+        verify(usuarioRepository, never()).save(any());
     }
 
     @Test
@@ -88,6 +115,188 @@ class AuthenticationServiceTest {
 
         assertThat(token).isNull();
         verify(usuarioRepository, never()).save(any());
-        verify(jwtUtil, never()).generateToken(any());
+        verify(jwtUtil, never()).generateToken(any(Usuario.class));
+    }
+
+    @Test
+    @DisplayName("login revoca el token anterior al emitir uno nuevo")
+    void login_success_revokesPreviousToken() {
+        existingUser.setToken("old-token");
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(jwtUtil.generateToken(existingUser)).thenReturn("new-token");
+
+        authenticationService.login("user@mail.com", "raw");
+
+        verify(tokenRevocationIndex).revoke("old-token");
+    }
+
+    @Test
+    @DisplayName("login fallido no revoca tokens")
+    void login_failure_doesNotRevoke() {
+        existingUser.setToken("old-token");
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("bad", "ENCODED")).thenReturn(false);
+
+        authenticationService.login("user@mail.com", "bad");
+
+        verifyNoInteractions(tokenRevocationIndex);
+    }
+
+    @Test
+    @DisplayName("login regenera el hash cuando usa parámetros obsoletos")
+    void login_outdatedHash_isUpgraded() {
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("ENCODED")).thenReturn(true);
+        when(passwordEncoder.encode("raw")).thenReturn("{bcrypt}NEW");
+        when(jwtUtil.generateToken(existingUser)).thenReturn("jwt-token");
+
+        authenticationService.login("user@mail.com", "raw");
+
+        verify(loginWriteBehind).writeNow(eq(existingUser.getId()), any(LocalDateTime.class), eq("jwt-token"), eq("{bcrypt}NEW"));
+        verify(usuarioDetailsCache).evict("user@mail.com");
+    }
+
+    @Test
+    @DisplayName("login con hash vigente no lo regenera")
+    void login_currentHash_isNotRehashed() {
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(jwtUtil.generateToken(existingUser)).thenReturn("jwt-token");
+
+        authenticationService.login("user@mail.com", "raw");
+
+        verify(passwordEncoder, never()).encode(any());
+        verifyNoInteractions(usuarioDetailsCache);
+    }
+
+    @Test
+    @DisplayName("login no falla si el pool está saturado al regenerar el hash")
+    void login_upgradeWhenPoolBusy_isPostponed() {
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("ENCODED")).thenReturn(true);
+        when(passwordEncoder.encode("raw")).thenThrow(new ServiceBusyException("ocupado", 1));
+        when(jwtUtil.generateToken(existingUser)).thenReturn("jwt-token");
+
+        String token = authenticationService.login("user@mail.com", "raw");
+
+        assertThat(token).isEqualTo("jwt-token");
+        verify(loginWriteBehind).writeNow(eq(existingUser.getId()), any(LocalDateTime.class), eq("jwt-token"), isNull());
+    }
+
+    @Test
+    @DisplayName("login en modo diferido no guarda y revoca el token pendiente anterior")
+    void login_writeBehind_defersSaveAndRevokesPendingToken() {
+        existingUser.setId(UUID.fromString("00000000-0000-0000-0000-0000000000aa"));
+        existingUser.setToken("db-token");
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(jwtUtil.generateToken(existingUser)).thenReturn("new-token");
+        when(loginWriteBehind.isEnabled()).thenReturn(true);
+        when(loginWriteBehind.record(eq(existingUser.getId()), any(LocalDateTime.class), eq("new-token"), eq("db-token")))
+                .thenReturn("pending-token");
+
+        String token = authenticationService.login("user@mail.com", "raw");
+
+        assertThat(token).isEqualTo("new-token");
+        verify(loginWriteBehind, never()).writeNow(any(), any(), any(), any());
+        verify(tokenRevocationIndex).revokeInMemory("pending-token");
+        verify(tokenRevocationIndex, never()).revoke(anyString());
+        assertThat(existingUser.getToken()).isEqualTo("db-token");
+    }
+
+    @Test
+    @DisplayName("login repetido en modo diferido no hace llamadas JDBC hasta el volcado")
+    void login_writeBehind_makesNoJdbcCallsUntilFlush() {
+        JwtUtil firmador = new JwtUtil("test-secret-key-for-unit-testing", 3600000);
+        String tokenEnBd = firmador.generateToken("db@mail.com");
+        String primero = firmador.generateToken("primero@mail.com");
+        String segundo = firmador.generateToken("segundo@mail.com");
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TokenRevocadoRepository tokenRevocadoRepository = mock(TokenRevocadoRepository.class);
+        TokenRevocationIndex revocaciones = new TokenRevocationIndex(tokenRevocadoRepository, firmador,
+                new SimpleMeterRegistry(), true, 1000, 0.01, 3600000);
+        LoginWriteBehind writeBehind = new LoginWriteBehind(jdbcTemplate, mock(PlatformTransactionManager.class),
+                mock(UsuarioEntityCache.class), new SimpleMeterRegistry(), true, 1000, 500);
+        AuthenticationService service = new AuthenticationService(usuarioRepository, passwordEncoder, jwtUtil,
+                revocaciones, usuarioDetailsCache, writeBehind, loginThrottle, correoIndex);
+        existingUser.setId(UUID.fromString("00000000-0000-0000-0000-0000000000ac"));
+        existingUser.setToken(tokenEnBd);
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(jwtUtil.generateToken(existingUser)).thenReturn(primero, segundo);
+
+        assertThat(service.login("user@mail.com", "raw")).isEqualTo(primero);
+        assertThat(service.login("user@mail.com", "raw")).isEqualTo(segundo);
+
+        verifyNoInteractions(jdbcTemplate, tokenRevocadoRepository);
+        verify(usuarioRepository, never()).save(any());
+        assertThat(revocaciones.isRevoked(tokenEnBd)).isTrue();
+        assertThat(revocaciones.isRevoked(primero)).isTrue();
+        assertThat(revocaciones.isRevoked(segundo)).isFalse();
+
+        writeBehind.flush();
+
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE usuarios"), anyList());
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO tokens_revocados"),
+                argThat((List<Object[]> filas) -> filas.size() == 2));
+    }
+
+    @Test
+    @DisplayName("login en modo diferido guarda de inmediato si regenera el hash")
+    void login_writeBehindWithHashUpgrade_savesSynchronously() {
+        existingUser.setId(UUID.fromString("00000000-0000-0000-0000-0000000000ab"));
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("ENCODED")).thenReturn(true);
+        when(passwordEncoder.encode("raw")).thenReturn("{bcrypt}NEW");
+        when(jwtUtil.generateToken(existingUser)).thenReturn("new-token");
+        when(loginWriteBehind.isEnabled()).thenReturn(true);
+
+        authenticationService.login("user@mail.com", "raw");
+
+        verify(loginWriteBehind).record(eq(existingUser.getId()), any(LocalDateTime.class), eq("new-token"), any());
+        verify(loginWriteBehind).writeNow(eq(existingUser.getId()), any(LocalDateTime.class), eq("new-token"), eq("{bcrypt}NEW"));
+    }
+
+    @Test
+    @DisplayName("login limitado no consulta la base ni calcula el hash")
+    void login_throttled_skipsLookupAndHashing() {
+        doThrow(new TooManyRequestsException("limite", 30)).when(loginThrottle).acquire("user@mail.com", "10.0.0.1");
+
+        assertThatThrownBy(() -> authenticationService.login("user@mail.com", "raw", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        verifyNoInteractions(usuarioRepository, passwordEncoder);
+    }
+
+    @Test
+    @DisplayName("login fallido se informa al limitador; el exitoso reinicia el backoff")
+    void login_reportsOutcomeToThrottle() {
+        when(usuarioRepository.findByCorreo("user@mail.com")).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches("bad", "ENCODED")).thenReturn(false);
+        when(passwordEncoder.matches("raw", "ENCODED")).thenReturn(true);
+        when(jwtUtil.generateToken(existingUser)).thenReturn("jwt-token");
+
+        authenticationService.login("user@mail.com", "bad", "10.0.0.1");
+        authenticationService.login("user@mail.com", "raw", "10.0.0.1");
+
+        verify(loginThrottle).onFailure("user@mail.com", "10.0.0.1");
+        verify(loginThrottle).onSuccess("user@mail.com");
+        verify(loginThrottle, times(2)).acquire("user@mail.com", "10.0.0.1");
+    }
+
+    @Test
+    @DisplayName("login de un correo ausente del índice no consulta la base")
+    void login_correoNotInIndex_skipsLookup() {
+        when(correoIndex.mightExist("ghost@mail.com")).thenReturn(false);
+
+        String token = authenticationService.login("ghost@mail.com", "raw");
+
+        assertThat(token).isNull();
+        verifyNoInteractions(usuarioRepository, passwordEncoder);
+        verify(loginThrottle).onFailure("ghost@mail.com", null);
     }
 }
@@ -0,0 +1,181 @@
+package com.evaluacion.usuarios.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorreoIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:correo-index;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE usuarios (correo VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO usuarios (correo) VALUES ('juan@rodriguez.org'), ('ana.perez@example.com')");
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE usuarios");
+    }
+
+    private CorreoIndex index() {
+        CorreoIndex index = new CorreoIndex(jdbcTemplate, registry, true, 1000, 0.01);
+        index.load();
+        return index;
+    }
+
+    @Test
+    void load_shouldContainExistingCorreosAndRejectMostUnknownOnes() {
+        CorreoIndex index = index();
+
+        assertThat(index.mightExist("juan@rodriguez.org")).isTrue();
+        assertThat(index.mightExist("ana.perez@example.com")).isTrue();
+        int falsosPositivos = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (index.mightExist("desconocido" + i + "@example.com")) falsosPositivos++;
+        }
+        assertThat(falsosPositivos).isLessThan(300);
+        assertThat(registry.get("usuarios.correo.index.skipped").counter().count()).isGreaterThan(9_000);
+    }
+
+    /** Corre {@code altas} como dentro de una transacción; sus sincronizaciones se completan con {@link #commit}. */
+    private static List<TransactionSynchronization> enTransaccion(Runnable altas) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            altas.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit(List<TransactionSynchronization> sincronizaciones) {
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    @Test
+    void add_shouldBeVisibleImmediately() {
+        CorreoIndex index = index();
+
+        index.add("nuevo@example.com");
+
+        assertThat(index.mightExist("nuevo@example.com")).isTrue();
+    }
+
+    @Test
+    void rebuild_shouldKeepCorreosAddedBeforeTheirCommit() {
+        CorreoIndex index = index();
+        // Alta registrada en el índice pero aún no visible en la tabla cuando se escanea.
+        List<TransactionSynchronization> transaccion = enTransaccion(() -> index.add("pendiente@example.com"));
+
+        index.rebuild();
+        index.rebuild();
+
+        assertThat(index.mightExist("pendiente@example.com")).isTrue();
+        commit(transaccion);
+        assertThat(index.recentCount()).isZero();
+    }
+
+    @Test
+    void add_withoutRebuild_shouldNotRetainHashes() {
+        CorreoIndex index = index();
+
+        for (int i = 0; i < 10_000; i++) {
+            String correo = "alta" + i + "@example.com";
+            if (i % 2 == 0) {
+                index.add(correo);
+            } else {
+                commit(enTransaccion(() -> index.add(correo)));
+            }
+        }
+
+        assertThat(index.recentCount()).isZero();
+        assertThat(index.mightExist("alta9999@example.com")).isTrue();
+    }
+
+    /**
+     * Cada ronda: altas desde varios hilos, cada uno en su transacción, mientras corre una
+     * reconstrucción; al terminar todas deben estar en el filtro. Después se insertan en la tabla y se
+     * confirman las transacciones.
+     */
+    @Test
+    void add_concurrentWithRebuild_shouldNeverLoseACorreo() throws Exception {
+        CorreoIndex index = index();
+        int hilos = 4;
+        int porHilo = 50;
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(hilos + 1);
+        try {
+            for (int ronda = 0; ronda < 200; ronda++) {
+                java.util.concurrent.CountDownLatch largada = new java.util.concurrent.CountDownLatch(1);
+                java.util.List<java.util.concurrent.Future<List<TransactionSynchronization>>> tareas = new java.util.ArrayList<>();
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    index.rebuild();
+                    return List.of();
+                }));
+                java.util.List<String> correos = new java.util.ArrayList<>();
+                for (int h = 0; h < hilos; h++) {
+                    java.util.List<String> propios = new java.util.ArrayList<>();
+                    for (int i = 0; i < porHilo; i++) {
+                        propios.add("r" + ronda + "-h" + h + "-" + i + "@example.com");
+                    }
+                    correos.addAll(propios);
+                    tareas.add(executor.submit(() -> {
+                        largada.await();
+                        return enTransaccion(() -> propios.forEach(index::add));
+                    }));
+                }
+                largada.countDown();
+                List<TransactionSynchronization> transacciones = new java.util.ArrayList<>();
+                for (java.util.concurrent.Future<List<TransactionSynchronization>> tarea : tareas) {
+                    transacciones.addAll(tarea.get(30, java.util.concurrent.TimeUnit.SECONDS));
+                }
+
+                for (String correo : correos) {
+                    assertThat(index.mightExist(correo)).as(correo).isTrue();
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO usuarios (correo) VALUES (?)",
+                        correos.stream().map(c -> new Object[]{c}).toList());
+                commit(transacciones);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Las altas de la última ronda quedan contadas aunque la reconstrucción terminara durante ellas.
+        assertThat(index.count()).isGreaterThanOrEqualTo(2 + 200L * hilos * porHilo);
+        assertThat(index.recentCount()).isZero();
+    }
+
+    @Test
+    void rebuildIfStale_shouldDropRemovedCorreos() {
+        CorreoIndex index = index();
+        jdbcTemplate.update("DELETE FROM usuarios WHERE correo = 'juan@rodriguez.org'");
+        index.removed("juan@rodriguez.org");
+
+        index.rebuildIfStale();
+
+        assertThat(index.mightExist("ana.perez@example.com")).isTrue();
+        assertThat(index.mightExist("juan@rodriguez.org")).isFalse();
+    }
+
+    @Test
+    void disabled_shouldAlwaysAnswerMaybe() {
+        CorreoIndex index = new CorreoIndex(jdbcTemplate, registry, false, 1000, 0.01);
+        index.load();
+
+        assertThat(index.mightExist("cualquiera@example.com")).isTrue();
+    }
+}
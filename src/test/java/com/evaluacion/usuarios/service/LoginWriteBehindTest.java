@@ -0,0 +1,136 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.model.TokenRevocado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginWriteBehindTest {
+
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UsuarioEntityCache usuarioEntityCache;
+
+    private SimpleMeterRegistry registry;
+    private LoginWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        writeBehind = new LoginWriteBehind(jdbcTemplate, transactionManager, usuarioEntityCache, registry, true, 1000, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_sameUserTwice_shouldCoalesceIntoOneRowWithLatestToken() {
+        LocalDateTime t1 = LocalDateTime.now();
+        LocalDateTime t2 = t1.plusSeconds(1);
+
+        assertThat(writeBehind.record(ID, t1, "token-1", "db-token")).isEqualTo("db-token");
+        assertThat(writeBehind.record(ID, t2, "token-2", "db-token")).isEqualTo("token-1");
+        assertThat(registry.get("auth.login.writebehind.pending").gauge().value()).isEqualTo(1.0);
+
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(captor.getValue().get(0)[1]).isEqualTo("token-2");
+        assertThat(captor.getValue().get(0)[2]).isEqualTo(ID);
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(registry.get("auth.login.writebehind.flushed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void flush_shouldSplitIntoBatches() {
+        for (int i = 0; i < 5; i++) {
+            writeBehind.record(UUID.randomUUID(), LocalDateTime.now(), "token-" + i, null);
+        }
+
+        writeBehind.flush();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+        assertThat(registry.get("auth.login.writebehind.flushed").counter().count()).isEqualTo(5.0);
+    }
+
+    @Test
+    void take_shouldRemovePendingLogin() {
+        writeBehind.record(ID, LocalDateTime.now(), "token-1", null);
+
+        assertThat(writeBehind.take(ID)).get().extracting(LoginWriteBehind.Pendiente::token).isEqualTo("token-1");
+        assertThat(writeBehind.take(ID)).isEmpty();
+
+        writeBehind.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_whenWriteFails_shouldKeepPendingLogins() {
+        writeBehind.record(ID, LocalDateTime.now(), "token-1", null);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new org.springframework.dao.DataAccessResourceFailureException("caida"));
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldWriteRevocationsWithTheLoginBatchAndRequeueThemOnFailure() {
+        writeBehind.record(ID, LocalDateTime.now(), "token-2", "token-1");
+        writeBehind.recordRevocation(new TokenRevocado("firma-token-1", LocalDateTime.now().plusHours(1)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new org.springframework.dao.DataAccessResourceFailureException("caida"))
+                .thenReturn(new int[]{1});
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.pendingCount()).isEqualTo(1);
+        assertThat(writeBehind.pendingRevocationCount()).isEqualTo(1);
+
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO tokens_revocados"), captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(fila -> assertThat(fila[0]).isEqualTo("firma-token-1"));
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(writeBehind.pendingRevocationCount()).isZero();
+    }
+
+    @Test
+    void loginDuringFlush_shouldStayPendingForNextBatch() {
+        writeBehind.record(ID, LocalDateTime.now(), "token-1", null);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writeBehind.record(ID, LocalDateTime.now(), "token-2", null);
+            return new int[]{1};
+        });
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.take(ID)).get().extracting(LoginWriteBehind.Pendiente::token).isEqualTo("token-2");
+    }
+}
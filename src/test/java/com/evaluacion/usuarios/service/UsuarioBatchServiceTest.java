@@ -0,0 +1,206 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.UsuarioBatchResult;
+import com.evaluacion.usuarios.exception.BatchTooLargeException;
+import com.evaluacion.usuarios.exception.ServiceBusyException;
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.security.BoundedPasswordEncoder;
+import com.evaluacion.usuarios.security.JwtUtil;
+import com.evaluacion.usuarios.security.PasswordPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioBatchServiceTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private CorreoIndex correoIndex;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:usuario-batch;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE usuarios (id UUID PRIMARY KEY, nombre VARCHAR(255) NOT NULL, "
+                + "correo VARCHAR(255) NOT NULL UNIQUE, contrasena VARCHAR(255) NOT NULL, creado TIMESTAMP NOT NULL, "
+                + "modificado TIMESTAMP, ultimo_login TIMESTAMP, token VARCHAR(1024), activo BOOLEAN NOT NULL)");
+        jdbcTemplate.execute("CREATE SEQUENCE telefonos_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE telefonos (id BIGINT DEFAULT NEXT VALUE FOR telefonos_seq PRIMARY KEY, numero VARCHAR(255) NOT NULL, "
+                + "codigo_ciudad VARCHAR(50) NOT NULL, codigo_pais VARCHAR(50) NOT NULL, usuario_id UUID REFERENCES usuarios(id))");
+        jdbcTemplate.update("INSERT INTO usuarios (id, nombre, correo, contrasena, creado, activo) "
+                + "VALUES (RANDOM_UUID(), 'Juan', 'juan@rodriguez.org', 'x', CURRENT_TIMESTAMP, TRUE)");
+        registry = new SimpleMeterRegistry();
+        lenient().when(correoIndex.mightExist(anyString())).thenReturn(true);
+        lenient().when(jwtUtil.generateToken(any(Usuario.class))).thenAnswer(inv -> "TOKEN-" + inv.<Usuario>getArgument(0).getCorreo());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE telefonos");
+        jdbcTemplate.execute("DROP TABLE usuarios");
+        jdbcTemplate.execute("DROP SEQUENCE telefonos_seq");
+    }
+
+    private UsuarioBatchService service(PasswordEncoder encoder, int maxSize, int chunkSize) {
+        return new UsuarioBatchService(jdbcTemplate, new DataSourceTransactionManager(dataSource), encoder,
+                PasswordPolicy.defaults(registry), jwtUtil, correoIndex,
+                Validation.buildDefaultValidatorFactory().getValidator(), maxSize, chunkSize, 4);
+    }
+
+    private static PasswordEncoder prefixEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                return "ENC-" + raw;
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return encoded.equals(encode(raw));
+            }
+        };
+    }
+
+    private static Usuario usuario(String correo, String contrasena, Telefono... telefonos) {
+        Usuario u = new Usuario("Nombre", correo, contrasena);
+        u.setTelefonos(new ArrayList<>(List.of(telefonos)));
+        return u;
+    }
+
+    @Test
+    void createAll_shouldInsertUsuariosAndTelefonosInBatches() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(prefixEncoder(), 2, 8,
+                Duration.ofSeconds(2), Duration.ofSeconds(1), registry);
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            usuarios.add(usuario("u" + i + "@example.com", "Password" + i, new Telefono("123" + i, "1", "57")));
+        }
+
+        List<UsuarioBatchResult> resultados = service(encoder, 100, 10).createAll(usuarios);
+        encoder.close();
+
+        assertThat(resultados).hasSize(25).allMatch(r -> r.estado() == 201 && r.id() != null);
+        assertThat(resultados.get(7).indice()).isEqualTo(7);
+        assertThat(resultados.get(7).token()).isEqualTo("TOKEN-u7@example.com");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Integer.class)).isEqualTo(26);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM telefonos", Integer.class)).isEqualTo(25);
+        assertThat(jdbcTemplate.queryForObject("SELECT contrasena FROM usuarios WHERE correo = 'u3@example.com'", String.class))
+                .isEqualTo("ENC-Password3");
+        verify(correoIndex).add("u24@example.com");
+    }
+
+    @Test
+    void createAll_shouldTakeTelefonoIdsFromTheSequenceInBlocks() {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            usuarios.add(usuario("s" + i + "@example.com", "Password" + i,
+                    new Telefono("1" + i, "1", "57"), new Telefono("2" + i, "1", "57")));
+        }
+
+        service(prefixEncoder(), 100, 25).createAll(usuarios);
+
+        // 120 ids consecutivos con 4 valores de la secuencia (1, 51, 101, 151), no uno por fila.
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM telefonos ORDER BY id", Long.class))
+                .hasSize(120).first().isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM telefonos", Long.class)).isEqualTo(120L);
+        assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR telefonos_seq", Long.class)).isEqualTo(201L);
+    }
+
+    @Test
+    void createAll_shouldReportEachInvalidItem() {
+        List<Usuario> usuarios = new ArrayList<>(List.of(
+                usuario("ok@example.com", " Password1 "),
+                usuario("corta@example.com", "Pass1"),
+                usuario("no-es-correo", "Password1"),
+                usuario("ok@example.com", "Password1"),
+                usuario("juan@rodriguez.org", "Password1"),
+                usuario("tel@example.com", "Password1", new Telefono("", "1", "57"))));
+        usuarios.add(null);
+
+        List<UsuarioBatchResult> resultados = service(prefixEncoder(), 100, 10).createAll(usuarios);
+
+        assertThat(resultados).extracting(UsuarioBatchResult::estado).containsExactly(201, 400, 400, 409, 409, 400, 400);
+        assertThat(resultados.get(1).mensaje()).isEqualTo("La contraseña debe tener al menos 8 caracteres");
+        assertThat(resultados.get(2).mensaje()).startsWith("El campo 'correo' es inválido.");
+        assertThat(resultados.get(3).mensaje()).isEqualTo("El correo está repetido en el lote");
+        assertThat(resultados.get(4).mensaje()).isEqualTo("El correo ya está registrado");
+        assertThat(resultados.get(5).mensaje()).startsWith("El campo 'telefonos[0].numero' es inválido.");
+        assertThat(jdbcTemplate.queryForObject("SELECT contrasena FROM usuarios WHERE correo = 'ok@example.com'", String.class))
+                .isEqualTo("ENC-Password1");
+    }
+
+    @Test
+    void createAll_whenChunkFails_shouldRetryItemsOneByOne() {
+        // El índice no conoce el correo existente: la consulta IN no lo ve y el INSERT del chunk falla.
+        lenient().when(correoIndex.mightExist(anyString())).thenReturn(false);
+        List<Usuario> usuarios = List.of(
+                usuario("a@example.com", "Password1"),
+                usuario("juan@rodriguez.org", "Password1"),
+                usuario("b@example.com", "Password1"));
+
+        List<UsuarioBatchResult> resultados = service(prefixEncoder(), 100, 3).createAll(usuarios);
+
+        assertThat(resultados).extracting(UsuarioBatchResult::estado).containsExactly(201, 409, 201);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void createAll_whenHashingPoolBusy_shouldReport503ForThatItem() {
+        PasswordEncoder encoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                if (raw.toString().startsWith("Ocupado")) throw new ServiceBusyException("Servicio saturado", 1);
+                return "ENC-" + raw;
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return false;
+            }
+        };
+
+        List<UsuarioBatchResult> resultados = service(encoder, 100, 10).createAll(List.of(
+                usuario("a@example.com", "Password1"),
+                usuario("b@example.com", "Ocupado1A")));
+
+        assertThat(resultados).extracting(UsuarioBatchResult::estado).containsExactly(201, 503);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios WHERE correo = 'b@example.com'", Integer.class)).isZero();
+    }
+
+    @Test
+    void createAll_whenBatchTooLarge_shouldThrow() {
+        UsuarioBatchService service = service(prefixEncoder(), 2, 10);
+        List<Usuario> usuarios = List.of(usuario("a@example.com", "Password1"), usuario("b@example.com", "Password1"),
+                usuario("c@example.com", "Password1"));
+
+        assertThrows(BatchTooLargeException.class, () -> service.createAll(usuarios));
+    }
+}
@@ -0,0 +1,95 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:usuario-service-jpa;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UsuarioExportServiceTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void exportNdjson_shouldWriteEveryUsuarioWithTelefonosInChunksWithBoundedContext() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i < 9; i++) {
+            Usuario u = new Usuario(UUID.randomUUID(), "U" + i, "u" + i + "@example.com", "x", base.plusSeconds(i));
+            List<Telefono> telefonos = new ArrayList<>();
+            for (int j = 0; j < i % 3; j++) {
+                Telefono t = new Telefono(i + "0" + j, "1", "57");
+                t.setUsuario(u);
+                telefonos.add(t);
+            }
+            u.setTelefonos(telefonos);
+            usuarioRepository.save(u);
+        }
+        usuarioRepository.flush();
+        entityManager.clear();
+        long total = usuarioRepository.count();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        StringBuilder salida = new StringBuilder();
+        List<Integer> entidadesPorLinea = new ArrayList<>();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                salida.append((char) b);
+                if (b == '\n') {
+                    entidadesPorLinea.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+                }
+            }
+        };
+
+        long exportados = new UsuarioExportService(usuarioRepository, objectMapper, 4)
+                .exportNdjson(out);
+
+        assertThat(exportados).isEqualTo(total);
+        String[] lineas = salida.toString().split("\n");
+        assertThat(lineas).hasSize((int) total);
+        JsonNode u5 = null;
+        for (String linea : lineas) {
+            JsonNode nodo = objectMapper.readTree(linea);
+            assertThat(nodo.has("contrasena")).isFalse();
+            if ("u5@example.com".equals(nodo.get("correo").asText())) u5 = nodo;
+        }
+        assertThat(u5).isNotNull();
+        assertThat(u5.get("telefonos")).hasSize(2);
+        assertThat(u5.get("telefonos").get(1).get("numero").asText()).isEqualTo("501");
+        // Una consulta de usuarios y una de teléfonos por grupo de 4: sin N+1.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + (total + 3) / 4);
+        // Lectura por proyección: ninguna entidad administrada en ningún momento.
+        assertThat(entidadesPorLinea).containsOnly(0);
+    }
+}
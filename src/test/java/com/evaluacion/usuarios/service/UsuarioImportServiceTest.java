@@ -0,0 +1,143 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.UsuarioBatchResult;
+import com.evaluacion.usuarios.dto.UsuarioImportProgress;
+import com.evaluacion.usuarios.model.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioImportServiceTest {
+
+    @Mock
+    private UsuarioBatchService usuarioBatchService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        // Crea todos salvo los correos que empiezan con "dup".
+        lenient().when(usuarioBatchService.createAll(anyList())).thenAnswer(inv -> {
+            List<Usuario> usuarios = inv.getArgument(0);
+            List<UsuarioBatchResult> resultados = new ArrayList<>();
+            for (int i = 0; i < usuarios.size(); i++) {
+                String correo = usuarios.get(i).getCorreo();
+                resultados.add(correo.startsWith("dup")
+                        ? new UsuarioBatchResult(i, correo, 409, null, null, "El correo ya está registrado")
+                        : new UsuarioBatchResult(i, correo, 201, null, "T", null));
+            }
+            return resultados;
+        });
+    }
+
+    private static String linea(String correo) {
+        return "{\"nombre\":\"N\",\"correo\":\"" + correo + "\",\"contrasena\":\"Password1\","
+                + "\"telefonos\":[{\"numero\":\"1\",\"codigoCiudad\":\"2\",\"codigoPais\":\"3\"}]}\n";
+    }
+
+    @Test
+    void importNdjson_shouldReportLineErrorsAndProgressPerChunk() throws Exception {
+        String ndjson = linea("a@example.com")
+                + "\n"
+                + "{no es json\n"
+                + linea("dup@example.com")
+                + "{\"nombre\":\"" + "x".repeat(300) + "\"}\n"
+                + linea("b@example.com");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        UsuarioImportProgress fin = new UsuarioImportService(usuarioBatchService, objectMapper, 2, 200)
+                .importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(fin).isEqualTo(new UsuarioImportProgress(5, 2, 3, true, null));
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "{\"linea\":3,\"estado\":400,\"mensaje\":\"JSON mal formado o contenido inválido\"}",
+                "{\"procesados\":2,\"creados\":1,\"fallidos\":1}",
+                "{\"linea\":4,\"correo\":\"dup@example.com\",\"estado\":409,\"mensaje\":\"El correo ya está registrado\"}",
+                "{\"linea\":5,\"estado\":400,\"mensaje\":\"La línea supera el máximo de 200 bytes\"}",
+                "{\"procesados\":4,\"creados\":1,\"fallidos\":3}",
+                "{\"procesados\":5,\"creados\":2,\"fallidos\":3}",
+                "{\"procesados\":5,\"creados\":2,\"fallidos\":3,\"completado\":true}");
+    }
+
+    @Test
+    void importNdjson_shouldParseEachLineOnItsOwn() throws Exception {
+        String ndjson = linea("a@example.com").replace("\n", "\r\n")
+                + "{\"nombre\":\"N\"} {\"nombre\":\"M\"}\n"
+                + "{\"nombre\":\"sin cerrar\"\n"
+                + "   \n"
+                + linea("b@example.com").trim();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        UsuarioImportProgress fin = new UsuarioImportService(usuarioBatchService, objectMapper, 10, 65536)
+                .importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out);
+
+        // Dos valores en una línea y un objeto sin cerrar solo invalidan su línea; la última no termina en \n.
+        assertThat(fin).isEqualTo(new UsuarioImportProgress(4, 2, 2, true, null));
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("{\"linea\":2,\"estado\":400", "{\"linea\":3,\"estado\":400");
+    }
+
+    @Test
+    void importNdjson_shouldStreamLargeInputInFixedSizeChunks() throws Exception {
+        int total = 100_000;
+        AtomicInteger generadas = new AtomicInteger();
+        // Genera las líneas a demanda: la entrada completa nunca existe en memoria.
+        InputStream entrada = new InputStream() {
+            private byte[] actual = new byte[0];
+            private int pos;
+
+            @Override
+            public int read() {
+                if (pos == actual.length) {
+                    if (generadas.get() == total) return -1;
+                    actual = linea("u" + generadas.getAndIncrement() + "@example.com").getBytes(StandardCharsets.UTF_8);
+                    pos = 0;
+                }
+                return actual[pos++];
+            }
+        };
+        AtomicInteger lineasSalida = new AtomicInteger();
+        OutputStream salida = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (b == '\n') lineasSalida.incrementAndGet();
+            }
+        };
+
+        UsuarioImportProgress fin = new UsuarioImportService(usuarioBatchService, objectMapper, 1000, 65536)
+                .importNdjson(entrada, salida);
+
+        assertThat(fin.creados()).isEqualTo(total);
+        assertThat(lineasSalida.get()).isEqualTo(total / 1000 + 1);
+        verify(usuarioBatchService, times(total / 1000)).createAll(argThat(l -> l.size() == 1000));
+    }
+
+    @Test
+    void importNdjson_whenBatchFails_shouldEndWithIncompleteProgress() throws Exception {
+        when(usuarioBatchService.createAll(anyList())).thenThrow(new IllegalStateException("base caída"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        UsuarioImportProgress fin = new UsuarioImportService(usuarioBatchService, objectMapper, 10, 65536)
+                .importNdjson(new ByteArrayInputStream(linea("a@example.com").getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(fin.completado()).isFalse();
+        assertThat(fin.procesados()).isZero();
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"completado\":false");
+    }
+}
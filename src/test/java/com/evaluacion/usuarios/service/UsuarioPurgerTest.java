@@ -0,0 +1,102 @@
+package com.evaluacion.usuarios.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:usuario-service-jpa;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UsuarioPurgerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CorreoIndex correoIndex = mock(CorreoIndex.class);
+    private final UsuarioEntityCache usuarioEntityCache = mock(UsuarioEntityCache.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /** Inserta {@code cantidad} usuarios con un teléfono cada uno; los primeros {@code inactivos} con activo = FALSE. */
+    private List<UUID> insertUsuarios(int cantidad, int inactivos) {
+        LocalDateTime base = LocalDateTime.of(2031, 1, 1, 0, 0);
+        List<UUID> ids = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            jdbcTemplate.update("INSERT INTO usuarios (id, nombre, correo, contrasena, creado, activo) VALUES (?, ?, ?, 'x', ?, ?)",
+                    id, "P" + i, "p" + i + "@example.com", Timestamp.valueOf(base.plusSeconds(i)), i >= inactivos);
+            jdbcTemplate.update("INSERT INTO telefonos (numero, codigo_ciudad, codigo_pais, usuario_id) VALUES (?, '1', '57', ?)",
+                    "9" + i, id);
+        }
+        return ids;
+    }
+
+    private long count(String sql, List<UUID> ids) {
+        return jdbcTemplate.queryForObject(sql + " IN (" + String.join(",", ids.stream().map(id -> "?").toList()) + ")",
+                Long.class, ids.toArray());
+    }
+
+    @Test
+    void purge_shouldDeleteOnlyInactiveUsuariosAndTheirTelefonosInBatches() {
+        List<UUID> ids = insertUsuarios(7, 5);
+        UsuarioPurger purger = new UsuarioPurger(jdbcTemplate, transactionManager, correoIndex, usuarioEntityCache, registry, true, 2, 100_000, Duration.ofMinutes(1));
+
+        assertThat(purger.purge()).isEqualTo(5);
+
+        assertThat(count("SELECT COUNT(*) FROM usuarios WHERE id", ids)).isEqualTo(2);
+        assertThat(count("SELECT COUNT(*) FROM telefonos WHERE usuario_id", ids)).isEqualTo(2);
+        assertThat(count("SELECT COUNT(*) FROM usuarios WHERE activo AND id", ids)).isEqualTo(2);
+        verify(correoIndex, times(5)).removed(anyString());
+        // Solo se invalidan los usuarios purgados y sus correos, de a un lote.
+        verify(usuarioEntityCache).evict(ids.subList(0, 2));
+        verify(usuarioEntityCache).evict(ids.subList(4, 5));
+        verify(usuarioEntityCache).evictCorreos(List.of("p0@example.com", "p1@example.com"));
+        verify(usuarioEntityCache, never()).evictAll();
+        assertThat(registry.get("usuarios.purge.deleted").counter().count()).isEqualTo(5.0);
+        assertThat(purger.purge()).isZero();
+    }
+
+    @Test
+    void purge_shouldNotExceedMaxRowsPerSecond() {
+        insertUsuarios(6, 6);
+        // 20 filas/s y lotes de 2: tras cada lote completo espera 100 ms.
+        UsuarioPurger purger = new UsuarioPurger(jdbcTemplate, transactionManager, correoIndex, usuarioEntityCache, registry, true, 2, 20, Duration.ofMinutes(1));
+
+        long inicio = System.nanoTime();
+        assertThat(purger.purge()).isEqualTo(6);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+    }
+
+    @Test
+    void purge_shouldStopAfterMaxDuration() {
+        insertUsuarios(6, 6);
+        UsuarioPurger purger = new UsuarioPurger(jdbcTemplate, transactionManager, correoIndex, usuarioEntityCache, registry, true, 2, 1, Duration.ofMillis(200));
+
+        assertThat(purger.purge()).isEqualTo(2);
+    }
+}
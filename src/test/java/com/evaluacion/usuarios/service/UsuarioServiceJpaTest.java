@@ -0,0 +1,456 @@
+package com.evaluacion.usuarios.service;
+
+import com.evaluacion.usuarios.dto.TelefonoResponse;
+import com.evaluacion.usuarios.dto.UsuarioResponse;
+import com.evaluacion.usuarios.exception.PasswordInvalidException;
+import com.evaluacion.usuarios.model.Telefono;
+import com.evaluacion.usuarios.model.Usuario;
+import com.evaluacion.usuarios.repository.UsuarioRepository;
+import com.evaluacion.usuarios.security.JwtUtil;
+import com.evaluacion.usuarios.security.LoginThrottle;
+import com.evaluacion.usuarios.security.PasswordPolicy;
+import com.evaluacion.usuarios.security.TokenRevocationIndex;
+import com.evaluacion.usuarios.security.UsuarioDetailsCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link UsuarioService} contra H2: cantidad de sentencias SQL y de entidades cargadas, insertadas
+ * y eliminadas.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:usuario-service-jpa;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UsuarioServiceJpaTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private UsuarioService usuarioService;
+    private UsuarioEntityCache usuarioEntityCache;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("ENC");
+        usuarioEntityCache = new UsuarioEntityCache(entityManager.getEntityManagerFactory());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        usuarioService = new UsuarioService(usuarioRepository, passwordEncoder, mock(JwtUtil.class),
+                mock(TokenRevocationIndex.class), mock(UsuarioDetailsCache.class), mock(LoginWriteBehind.class),
+                mock(CorreoIndex.class), mock(PasswordPolicy.class), usuarioEntityCache);
+        ReflectionTestUtils.setField(usuarioService, "maxPageSize", 1000);
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        // Los datos de cada test se revierten, pero lo que cargaron queda en la caché de segundo nivel.
+        usuarioEntityCache.evictAll();
+    }
+
+    private List<UUID> insertUsuarios(int cantidad) {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<UUID> ids = new ArrayList<>(cantidad);
+        List<Object[]> usuarios = new ArrayList<>(cantidad);
+        List<Object[]> telefonos = new ArrayList<>(cantidad * 2);
+        for (int i = 0; i < cantidad; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            usuarios.add(new Object[]{id, "U" + i, "u" + i + "@example.com", Timestamp.valueOf(base.plusSeconds(i))});
+            telefonos.add(new Object[]{"1" + i, id});
+            telefonos.add(new Object[]{"2" + i, id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO usuarios (id, nombre, correo, contrasena, creado, activo) "
+                + "VALUES (?, ?, ?, 'x', ?, TRUE)", usuarios);
+        jdbcTemplate.batchUpdate("INSERT INTO telefonos (numero, codigo_ciudad, codigo_pais, usuario_id) "
+                + "VALUES (?, '1', '57', ?)", telefonos);
+        return ids;
+    }
+
+    @Test
+    void findPage_with1000Usuarios_shouldUseTwoQueriesAndNoManagedEntities() throws Exception {
+        insertUsuarios(1000);
+        statistics.clear();
+
+        List<UsuarioResponse> usuarios = usuarioService.findPage(null, 1000).usuarios();
+        JsonNode json = objectMapper.valueToTree(usuarios);
+
+        assertThat(json).hasSize(1000);
+        assertThat(json.get(999).get("telefonos")).hasSize(2);
+        assertThat(json.get(999).has("contrasena")).isFalse();
+        // Una consulta de usuarios y una de teléfonos para toda la página, ambas por proyección.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void findResponseById_shouldReadProjectionWithoutManagedEntities() {
+        UUID id = insertUsuarios(1).get(0);
+        statistics.clear();
+
+        UsuarioResponse usuario = usuarioService.findResponseById(id);
+
+        assertThat(usuario.telefonos()).extracting(TelefonoResponse::numero).containsExactly("10", "20");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void findById_shouldFetchTelefonosInSameQuery() {
+        UUID id = insertUsuarios(1).get(0);
+        statistics.clear();
+
+        Usuario usuario = usuarioService.findById(id);
+        entityManager.clear();
+
+        assertThat(usuario.getTelefonos()).extracting(t -> t.getNumero()).containsExactlyInAnyOrder("10", "20");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * Una entrada READ_WRITE solo se lee en transacciones que empezaron después de guardarla, así
+     * que estos tests corren sin la transacción del test: cada llamada abre la suya, y los datos
+     * quedan confirmados y se borran al final.
+     */
+    private void sinTransaccionDelTest(Runnable test) {
+        try {
+            test.run();
+        } finally {
+            jdbcTemplate.update("DELETE FROM usuarios WHERE correo LIKE '%@example.com'");
+            usuarioEntityCache.evictAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findById_secondRead_shouldComeFromSecondLevelCacheUntilDeleted() {
+        sinTransaccionDelTest(() -> {
+            UUID id = insertUsuarios(1).get(0);
+            transactionTemplate.executeWithoutResult(status -> usuarioService.findById(id));
+            statistics.clear();
+
+            Usuario usuario = transactionTemplate.execute(status -> usuarioService.findById(id));
+
+            // Usuario, colección y sus dos teléfonos desde la caché: ninguna sentencia.
+            assertThat(usuario.getTelefonos()).extracting(Telefono::getNumero).containsExactlyInAnyOrder("10", "20");
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(4);
+
+            // El borrado es un UPDATE nativo que Hibernate no ve: UsuarioService invalida la entrada.
+            transactionTemplate.executeWithoutResult(status -> usuarioService.delete(id));
+            java.util.Optional<Usuario> borrado = transactionTemplate.execute(status -> usuarioRepository.findById(id));
+            assertThat(borrado).isEmpty();
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void delete_shouldKeepOtherUsuariosInSecondLevelCache() {
+        sinTransaccionDelTest(() -> {
+            List<UUID> ids = insertUsuarios(2);
+            transactionTemplate.executeWithoutResult(status -> ids.forEach(usuarioService::findById));
+
+            transactionTemplate.executeWithoutResult(status -> usuarioService.delete(ids.get(0)));
+            statistics.clear();
+
+            assertThat(transactionTemplate.execute(status -> usuarioService.findById(ids.get(1))).getNombre()).isEqualTo("U1");
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findByCorreo_secondRead_shouldResolveNaturalIdFromCache() {
+        sinTransaccionDelTest(() -> {
+            insertUsuarios(1);
+            assertThat(usuarioRepository.findByCorreo("u0@example.com")).isPresent();
+            statistics.clear();
+
+            assertThat(usuarioRepository.findByCorreo("u0@example.com")).get().extracting(Usuario::getNombre).isEqualTo("U0");
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void evictCorreos_shouldDropOnlyThoseNaturalIds() {
+        sinTransaccionDelTest(() -> {
+            insertUsuarios(2);
+            assertThat(usuarioRepository.findByCorreo("u0@example.com")).isPresent();
+            assertThat(usuarioRepository.findByCorreo("u1@example.com")).isPresent();
+
+            usuarioEntityCache.evictCorreos(List.of("u0@example.com"));
+            statistics.clear();
+
+            assertThat(usuarioRepository.findByCorreo("u0@example.com")).isPresent();
+            assertThat(usuarioRepository.findByCorreo("u1@example.com")).isPresent();
+            assertThat(statistics.getNaturalIdCacheMissCount()).isEqualTo(1);
+            assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void update_ofCorreo_shouldMoveNaturalIdInCache() {
+        sinTransaccionDelTest(() -> {
+            UUID id = insertUsuarios(1).get(0);
+            assertThat(usuarioRepository.findByCorreo("u0@example.com")).isPresent();
+
+            Usuario datos = new Usuario();
+            datos.setCorreo("nuevo@example.com");
+            transactionTemplate.executeWithoutResult(status -> usuarioService.update(id, datos));
+
+            assertThat(usuarioRepository.findByCorreo("u0@example.com")).isEmpty();
+            assertThat(usuarioRepository.findByCorreo("nuevo@example.com")).get().extracting(Usuario::getId).isEqualTo(id);
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void login_concurrentForSameUser_shouldNotFailOnVersion() throws Exception {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        CorreoIndex correoIndex = mock(CorreoIndex.class);
+        when(correoIndex.mightExist(anyString())).thenReturn(true);
+        LoginWriteBehind loginWriteBehind = new LoginWriteBehind(jdbcTemplate, transactionManager, usuarioEntityCache,
+                new SimpleMeterRegistry(), false, 500, 500);
+        AuthenticationService authenticationService = new AuthenticationService(usuarioRepository, passwordEncoder,
+                new JwtUtil("clave-de-prueba-con-al-menos-32-bytes", 3600000), mock(TokenRevocationIndex.class),
+                mock(UsuarioDetailsCache.class), loginWriteBehind, mock(LoginThrottle.class), correoIndex);
+        sinTransaccionDelTest(() -> {
+            UUID id = insertUsuarios(1).get(0);
+            int rondas = 50;
+            CyclicBarrier barrera = new CyclicBarrier(2);
+            Set<String> tokens = ConcurrentHashMap.newKeySet();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<?>> logins = new ArrayList<>();
+                for (int t = 0; t < 2; t++) {
+                    logins.add(executor.submit(() -> {
+                        for (int i = 0; i < rondas; i++) {
+                            barrera.await();
+                            tokens.add(authenticationService.login("u0@example.com", "x"));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> login : logins) {
+                    login.get(30, TimeUnit.SECONDS);
+                }
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // Cada login sube la versión una vez y ninguno falla por leerla desactualizada.
+            assertThat(jdbcTemplate.queryForObject("SELECT version FROM usuarios WHERE id = ?", Long.class, id))
+                    .isEqualTo(2L * rondas);
+            assertThat(tokens).contains(jdbcTemplate.queryForObject("SELECT token FROM usuarios WHERE id = ?", String.class, id));
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void update_rolledBack_shouldKeepPendingLoginQueued() {
+        LoginWriteBehind loginWriteBehind = new LoginWriteBehind(jdbcTemplate, transactionManager, usuarioEntityCache,
+                new SimpleMeterRegistry(), true, 1000, 500);
+        PasswordPolicy passwordPolicy = mock(PasswordPolicy.class);
+        doThrow(new PasswordInvalidException("Contraseña débil")).when(passwordPolicy).validate("debil");
+        UsuarioService servicio = new UsuarioService(usuarioRepository, mock(PasswordEncoder.class), mock(JwtUtil.class),
+                mock(TokenRevocationIndex.class), mock(UsuarioDetailsCache.class), loginWriteBehind,
+                mock(CorreoIndex.class), passwordPolicy, usuarioEntityCache);
+        sinTransaccionDelTest(() -> {
+            UUID id = insertUsuarios(1).get(0);
+            loginWriteBehind.record(id, LocalDateTime.now(), "token-pendiente", null);
+            Usuario datos = new Usuario();
+            datos.setContrasena("debil");
+
+            assertThrows(PasswordInvalidException.class,
+                    () -> transactionTemplate.executeWithoutResult(status -> servicio.update(id, datos)));
+
+            // El PATCH tomó el login pendiente antes de fallar: el rollback lo devuelve a la cola.
+            assertThat(loginWriteBehind.pendingCount()).isEqualTo(1);
+            loginWriteBehind.flush();
+            assertThat(jdbcTemplate.queryForObject("SELECT token FROM usuarios WHERE id = ?", String.class, id))
+                    .isEqualTo("token-pendiente");
+        });
+    }
+
+    private static Usuario datos(String nombre, Telefono... telefonos) {
+        Usuario datos = new Usuario();
+        datos.setNombre(nombre);
+        datos.setCorreo("u0@example.com");
+        datos.setTelefonos(new ArrayList<>(List.of(telefonos)));
+        return datos;
+    }
+
+    @Test
+    void replace_withUnchangedTelefonos_shouldIssueNoTelefonoSql() {
+        UUID id = insertUsuarios(1).get(0);
+        statistics.clear();
+
+        usuarioService.replace(id, datos("Otro nombre", new Telefono("20", "1", "57"), new Telefono("10", "1", "57")));
+        entityManager.flush();
+
+        // SELECT con teléfonos + UPDATE de usuarios; ningún INSERT/DELETE en telefonos.
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void update_withOneChangedTelefono_shouldDeleteAndInsertOnlyThatOne() {
+        UUID id = insertUsuarios(1).get(0);
+        statistics.clear();
+
+        usuarioService.update(id, datos(null, new Telefono("10", "1", "57"), new Telefono("30", "1", "57")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT numero FROM telefonos WHERE usuario_id = ? ORDER BY numero",
+                String.class, id)).containsExactly("10", "30");
+    }
+
+    @Test
+    void update_shouldBumpVersionAndRejectConcurrentWrite() {
+        UUID id = insertUsuarios(1).get(0);
+        statistics.clear();
+
+        assertThat(usuarioService.findVersion(id)).isZero();
+        // Solo la columna de versión: una consulta, sin teléfonos ni entidades.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        Usuario usuario = usuarioService.update(id, datos("Nuevo"), 0L);
+        entityManager.flush();
+        assertThat(usuario.getVersion()).isEqualTo(1);
+
+        // Otra escritura (p. ej. el login diferido) cambia la versión después de la lectura.
+        usuario.setNombre("Pisado");
+        jdbcTemplate.update("UPDATE usuarios SET version = version + 1 WHERE id = ?", id);
+        assertThrows(jakarta.persistence.OptimisticLockException.class, () -> entityManager.flush());
+    }
+
+    @Test
+    void create_withManyTelefonos_shouldBatchTheirInserts() {
+        Usuario usuario = new Usuario("Nuevo", "nuevo@example.com", "Password1");
+        List<Telefono> telefonos = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            telefonos.add(new Telefono("5" + i, "1", "57"));
+        }
+        usuario.setTelefonos(telefonos);
+        statistics.clear();
+
+        usuarioService.create(usuario);
+        entityManager.flush();
+
+        // Un INSERT batch por tabla más, a lo sumo, una llamada a telefonos_seq (reserva 50 ids).
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(21);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(telefonos).allMatch(t -> t.getId() != null);
+    }
+
+    @Test
+    void delete_shouldDeactivateWithoutLoadingAndHideUsuarioFromReads() {
+        UUID id = insertUsuarios(1).get(0);
+        statistics.clear();
+
+        usuarioService.delete(id);
+
+        // SELECT ... FOR UPDATE y UPDATE por JDBC: sin cargar la entidad ni pasar por Hibernate.
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT activo FROM usuarios WHERE id = ?", Boolean.class, id)).isFalse();
+        // Los teléfonos quedan hasta la purga.
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM telefonos WHERE usuario_id = ?", Long.class, id)).isEqualTo(2);
+        assertThat(usuarioRepository.findById(id)).isEmpty();
+        assertThat(usuarioRepository.findResponseById(id)).isEmpty();
+        assertThat(usuarioRepository.findVersionById(id)).isEmpty();
+        assertThat(usuarioRepository.findByCorreo("u0@example.com")).isEmpty();
+        assertThat(usuarioRepository.existsByCorreo("u0@example.com")).isTrue();
+        assertThat(usuarioService.findPage(null, 1000).usuarios()).extracting(UsuarioResponse::id).doesNotContain(id);
+        assertThrows(com.evaluacion.usuarios.exception.ResourceNotFoundException.class, () -> usuarioService.delete(id));
+    }
+
+    @Test
+    void delete_withStaleVersion_shouldKeepUsuario() {
+        UUID id = insertUsuarios(1).get(0);
+
+        assertThrows(com.evaluacion.usuarios.exception.PreconditionFailedException.class, () -> usuarioService.delete(id, 7L));
+        assertThat(usuarioRepository.findById(id)).isPresent();
+    }
+
+    @Test
+    void deleteAll_shouldDeactivateByChunksAndSkipMissingIds() {
+        List<UUID> ids = new ArrayList<>(insertUsuarios(5));
+        ids.add(UUID.randomUUID());
+        ids.add(ids.get(0));
+        ReflectionTestUtils.setField(usuarioService, "deleteChunkSize", 2);
+        statistics.clear();
+
+        List<UUID> borrados = usuarioService.deleteAll(ids);
+
+        assertThat(borrados).containsExactlyInAnyOrderElementsOf(ids.subList(0, 5));
+        // 6 ids distintos de a 2, por JDBC: ninguna sentencia ni carga de entidades en Hibernate.
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios WHERE activo AND id IN (?, ?, ?, ?, ?)",
+                Long.class, ids.subList(0, 5).toArray())).isZero();
+    }
+}
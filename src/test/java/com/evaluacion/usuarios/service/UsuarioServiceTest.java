@@ -1,12 +1,16 @@
 package com.evaluacion.usuarios.service;
 
+import com.evaluacion.usuarios.dto.TelefonoResponse;
+import com.evaluacion.usuarios.dto.UsuarioResponse;
 import com.evaluacion.usuarios.exception.ResourceNotFoundException;
 import com.evaluacion.usuarios.model.Usuario;
 import com.evaluacion.usuarios.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -29,9 +33,33 @@ class UsuarioServiceTest {
     @Mock
     private com.evaluacion.usuarios.security.JwtUtil jwtUtil;
 
+    @Mock
+    private com.evaluacion.usuarios.security.TokenRevocationIndex tokenRevocationIndex;
+
+    @Mock
+    private com.evaluacion.usuarios.security.UsuarioDetailsCache usuarioDetailsCache;
+
+    @Mock
+    private LoginWriteBehind loginWriteBehind;
+
+    @Mock
+    private CorreoIndex correoIndex;
+
+    @Mock
+    private UsuarioEntityCache usuarioEntityCache;
+
+    @Spy
+    private com.evaluacion.usuarios.security.PasswordPolicy passwordPolicy =
+            com.evaluacion.usuarios.security.PasswordPolicy.defaults(new io.micrometer.core.instrument.simple.SimpleMeterRegistry());
+
     @InjectMocks
     private UsuarioService usuarioService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(correoIndex.mightExist(anyString())).thenReturn(true);
+    }
+
     @Test
     void findAll_shouldReturnAll() {
         when(usuarioRepository.findAll()).thenReturn(List.of(
@@ -68,9 +96,9 @@ class UsuarioServiceTest {
     @Test
     void create_shouldSaveAndReturn() {
         var u = new Usuario("New", "new@example.com", "NewPass1A");
-        when(usuarioRepository.findByCorreo(anyString())).thenReturn(Optional.empty());
+        when(usuarioRepository.existsByCorreo(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("ENCODED_NEWPWD");
-        when(jwtUtil.generateToken(anyString())).thenReturn("TOKEN123");
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("TOKEN123");
         when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> {
             Usuario uarg = invocation.getArgument(0);
             uarg.setId(UUID.fromString("00000000-0000-0000-0000-000000000005"));
@@ -85,12 +113,92 @@ class UsuarioServiceTest {
         verify(usuarioRepository, times(1)).save(any(Usuario.class));
     }
 
+    @Test
+    void findResponseById_shouldAttachTelefonosFromProjection() {
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000005");
+        var creado = java.time.LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(usuarioRepository.findResponseById(id)).thenReturn(Optional.of(
+                new UsuarioResponse(id, "Juan", "juan@example.com", creado, null, creado, "T", true, 3)));
+        UsuarioRepository.TelefonoFila fila = mock(UsuarioRepository.TelefonoFila.class);
+        when(fila.getUsuarioId()).thenReturn(id);
+        when(fila.getNumero()).thenReturn("1234567");
+        when(fila.getCodigoCiudad()).thenReturn("1");
+        when(fila.getCodigoPais()).thenReturn("57");
+        when(usuarioRepository.findTelefonos(List.of(id))).thenReturn(List.of(fila));
+
+        var result = usuarioService.findResponseById(id);
+
+        assertThat(result.correo()).isEqualTo("juan@example.com");
+        assertThat(result.telefonos()).containsExactly(new TelefonoResponse("1234567", "1", "57"));
+        verify(usuarioRepository, never()).findById(any());
+    }
+
+    @Test
+    void findPage_whenMoreRowsThanLimit_shouldReturnNextCursor() {
+        var creado = java.time.LocalDateTime.of(2030, 1, 1, 0, 0);
+        var u1 = new UsuarioResponse(UUID.fromString("00000000-0000-0000-0000-000000000001"), "A", "a@example.com", creado, null, null, null, true, 0);
+        var u2 = new UsuarioResponse(UUID.fromString("00000000-0000-0000-0000-000000000002"), "B", "b@example.com", creado, null, null, null, true, 0);
+        var u3 = new UsuarioResponse(UUID.fromString("00000000-0000-0000-0000-000000000003"), "C", "c@example.com", creado, null, null, null, true, 0);
+        when(usuarioRepository.findFirstPage(org.springframework.data.domain.Limit.of(3))).thenReturn(List.of(u1, u2, u3));
+
+        var pagina = usuarioService.findPage(null, 2);
+
+        assertThat(pagina.usuarios()).containsExactly(u1, u2);
+        var cursor = UsuarioCursor.decode(pagina.siguienteCursor());
+        assertThat(cursor).isEqualTo(new UsuarioCursor(creado, u2.id()));
+
+        when(usuarioRepository.findPageAfter(creado, u2.id(), org.springframework.data.domain.Limit.of(3))).thenReturn(List.of(u3));
+        var siguiente = usuarioService.findPage(pagina.siguienteCursor(), 2);
+
+        assertThat(siguiente.usuarios()).containsExactly(u3);
+        assertThat(siguiente.siguienteCursor()).isNull();
+    }
+
+    @Test
+    void findPage_shouldCapLimitAndRejectInvalidCursor() {
+        when(usuarioRepository.findFirstPage(any())).thenReturn(List.of());
+
+        usuarioService.findPage(null, 100_000);
+
+        verify(usuarioRepository).findFirstPage(org.springframework.data.domain.Limit.of(501));
+        assertThrows(com.evaluacion.usuarios.exception.InvalidCursorException.class,
+                () -> usuarioService.findPage("no-es-un-cursor", 10));
+    }
+
+    @Test
+    void search_shouldNormalizeFiltersAndRequireAtLeastOne() {
+        when(usuarioRepository.search(any(), any(), any(), any())).thenReturn(List.of());
+
+        usuarioService.search(new com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro(
+                " Zo ", "", "@Example.com", "57", " "), null, 10);
+
+        verify(usuarioRepository).search(new com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro(
+                "Zo", null, "Example.com", "57", null), null, null, org.springframework.data.domain.Limit.of(11));
+        assertThrows(com.evaluacion.usuarios.exception.InvalidSearchException.class,
+                () -> usuarioService.search(new com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro(
+                        " ", null, null, null, null), null, 10));
+        assertThrows(com.evaluacion.usuarios.exception.InvalidSearchException.class,
+                () -> usuarioService.search(new com.evaluacion.usuarios.repository.UsuarioSearchRepository.Filtro(
+                        null, null, null, null, "1"), null, 10));
+    }
+
+    @Test
+    void findByTelefono_shouldTrimAndRequireAllThreeParts() {
+        when(usuarioRepository.findByTelefono(any(), any(), any(), any())).thenReturn(List.of());
+
+        assertThat(usuarioService.findByTelefono(" 57 ", "1", "1234567")).isEmpty();
+
+        verify(usuarioRepository).findByTelefono("57", "1", "1234567", org.springframework.data.domain.Limit.of(500));
+        assertThrows(com.evaluacion.usuarios.exception.InvalidSearchException.class,
+                () -> usuarioService.findByTelefono("57", " ", "1234567"));
+    }
+
     @Test
     void create_withValidPasswordWithDot_shouldSave() {
         var u = new Usuario("DotPass", "dot@example.com", "Hunter123.");
-        when(usuarioRepository.findByCorreo(anyString())).thenReturn(Optional.empty());
+        when(usuarioRepository.existsByCorreo(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("ENCODED_HUNTER");
-        when(jwtUtil.generateToken(anyString())).thenReturn("TOKEN_HUNTER");
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("TOKEN_HUNTER");
         when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> {
             Usuario uarg = invocation.getArgument(0);
             uarg.setId(UUID.fromString("00000000-0000-0000-0000-000000000007"));
@@ -108,16 +216,17 @@ class UsuarioServiceTest {
     @Test
     void create_whenPasswordInvalid_shouldThrow() {
         var u = new Usuario("New", "ok@example.com", "short");
-        when(usuarioRepository.findByCorreo("ok@example.com")).thenReturn(Optional.empty());
+        when(usuarioRepository.existsByCorreo("ok@example.com")).thenReturn(false);
 
-        assertThrows(com.evaluacion.usuarios.exception.PasswordInvalidException.class, () -> usuarioService.create(u));
+        var ex = assertThrows(com.evaluacion.usuarios.exception.PasswordInvalidException.class, () -> usuarioService.create(u));
+        assertThat(ex.getMessage()).isEqualTo("La contraseña debe tener al menos 8 caracteres");
         verify(usuarioRepository, never()).save(any(Usuario.class));
     }
 
     @Test
     void create_whenCorreoExists_shouldThrow() {
         var u = new Usuario("New", "exists@example.com", "NewPass1A");
-        when(usuarioRepository.findByCorreo("exists@example.com")).thenReturn(Optional.of(new Usuario(UUID.fromString("00000000-0000-0000-0000-000000000099"), "Exists", "exists@example.com", "pwd", null)));
+        when(usuarioRepository.existsByCorreo("exists@example.com")).thenReturn(true);
 
         assertThrows(com.evaluacion.usuarios.exception.EmailAlreadyRegisteredException.class, () -> usuarioService.create(u));
         verify(usuarioRepository, never()).save(any(Usuario.class));
@@ -129,7 +238,7 @@ class UsuarioServiceTest {
         var existing = new Usuario(id, "Nombre", "correo@ex.com", "pwd", null);
         existing.setModificado(null);
         when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
-        when(jwtUtil.generateToken(anyString())).thenReturn("TOKEN_REPLACED");
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("TOKEN_REPLACED");
         when(passwordEncoder.encode(anyString())).thenReturn("ENCODED_PWD");
         when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -141,13 +250,53 @@ class UsuarioServiceTest {
         assertThat(result.getCorreo()).isEqualTo("nuevo@ex.com");
     }
 
+    @Test
+    void replace_shouldKeepMatchingTelefonosAndAddOnlyMissingOnes() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000012");
+        var existing = new Usuario(id, "Nombre", "correo@ex.com", "pwd", null);
+        var fijo = new com.evaluacion.usuarios.model.Telefono("111", "1", "57");
+        var viejo = new com.evaluacion.usuarios.model.Telefono("222", "1", "57");
+        existing.setTelefonos(new java.util.ArrayList<>(List.of(fijo, viejo)));
+        when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var incoming = new Usuario(id, "Nombre", "correo@ex.com", null, null);
+        incoming.setTelefonos(List.of(new com.evaluacion.usuarios.model.Telefono("111", "1", "57"),
+                new com.evaluacion.usuarios.model.Telefono("111", "1", "57"),
+                new com.evaluacion.usuarios.model.Telefono("333", "1", "57")));
+        var result = usuarioService.replace(id, incoming);
+
+        // "111" existente se conserva (misma instancia), su duplicado y "333" se agregan, "222" se quita.
+        assertThat(result.getTelefonos()).hasSize(3).contains(fijo).doesNotContain(viejo);
+        assertThat(result.getTelefonos()).extracting(com.evaluacion.usuarios.model.Telefono::getNumero)
+                .containsExactlyInAnyOrder("111", "111", "333");
+        assertThat(result.getTelefonos()).allMatch(t -> t == fijo || t.getUsuario() == existing);
+    }
+
+    @Test
+    void replace_withStaleVersion_shouldThrowAndKeepPendingLogin() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000013");
+        var existing = new Usuario(id, "Nombre", "correo@ex.com", "pwd", null);
+        existing.setVersion(4);
+        var pendiente = new LoginWriteBehind.Pendiente(java.time.LocalDateTime.now(), "TOKEN_PENDIENTE");
+        when(loginWriteBehind.take(id)).thenReturn(Optional.of(pendiente));
+        when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
+
+        assertThrows(com.evaluacion.usuarios.exception.PreconditionFailedException.class,
+                () -> usuarioService.replace(id, new Usuario(id, "Otro", "correo@ex.com", null, null), 3L));
+
+        verify(usuarioRepository, never()).save(any(Usuario.class));
+        verify(loginWriteBehind).restore(id, pendiente);
+        assertThat(existing.getNombre()).isEqualTo("Nombre");
+    }
+
     @Test
     void update_shouldSetModificado() {
         var id = UUID.fromString("00000000-0000-0000-0000-000000000011");
         var existing = new Usuario(id, "Orig", "orig@ex.com", "pwd", null);
         existing.setModificado(null);
         when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
-        when(jwtUtil.generateToken(anyString())).thenReturn("TOKEN_UPDATED");
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("TOKEN_UPDATED");
         when(passwordEncoder.encode(anyString())).thenReturn("ENCODED_NEW");
         when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -160,4 +309,141 @@ class UsuarioServiceTest {
         assertThat(result.getNombre()).isEqualTo("Parcial");
         assertThat(result.getToken()).isEqualTo("TOKEN_UPDATED");
     }
+
+    @Test
+    void update_withNewPassword_shouldRevokePreviousToken() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000012");
+        var existing = new Usuario(id, "Orig", "orig@ex.com", "pwd", null);
+        existing.setToken("OLD_TOKEN");
+        when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("NEW_TOKEN");
+        when(passwordEncoder.encode(anyString())).thenReturn("ENCODED_NEW");
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var partial = new Usuario();
+        partial.setContrasena("NewPass1A");
+        usuarioService.update(id, partial);
+
+        verify(tokenRevocationIndex).revoke("OLD_TOKEN");
+    }
+
+    @Test
+    void delete_shouldRevokeCurrentToken() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000013");
+        when(usuarioRepository.deactivateAllById(eq(List.of(id)), any())).thenReturn(List.of(eliminado(id, "borrar@ex.com", "CURRENT_TOKEN")));
+
+        usuarioService.delete(id);
+
+        verify(usuarioRepository, never()).findById(id);
+        verify(tokenRevocationIndex).revoke("CURRENT_TOKEN");
+        verify(usuarioDetailsCache).evict("borrar@ex.com");
+        verify(usuarioEntityCache).evict(id);
+        // El correo sigue reservado hasta la purga.
+        verify(correoIndex, never()).removed(anyString());
+    }
+
+    @Test
+    void delete_withStaleVersion_shouldThrowPreconditionFailed() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000014");
+        when(usuarioRepository.deactivateByIdAndVersion(eq(id), eq(3L), any())).thenReturn(List.of());
+        when(usuarioRepository.findVersionById(id)).thenReturn(Optional.of(4L));
+
+        assertThrows(com.evaluacion.usuarios.exception.PreconditionFailedException.class, () -> usuarioService.delete(id, 3L));
+        verifyNoInteractions(tokenRevocationIndex, usuarioDetailsCache, usuarioEntityCache);
+    }
+
+    @Test
+    void delete_whenMissing_shouldThrowNotFound() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000015");
+        when(usuarioRepository.deactivateAllById(eq(List.of(id)), any())).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> usuarioService.delete(id));
+    }
+
+    private static UsuarioRepository.UsuarioEliminado eliminado(UUID id, String correo, String token) {
+        return new UsuarioRepository.UsuarioEliminado(id, correo, token);
+    }
+
+    @Test
+    void create_shouldAssignIdBeforeGeneratingToken() {
+        var u = new Usuario("New", "id@example.com", "NewPass1A");
+        when(usuarioRepository.existsByCorreo(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("ENCODED");
+        when(jwtUtil.generateToken(any(Usuario.class))).thenAnswer(invocation -> {
+            Usuario arg = invocation.getArgument(0);
+            assertThat(arg.getId()).isNotNull();
+            return "TOKEN_" + arg.getId();
+        });
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var result = usuarioService.create(u);
+
+        assertThat(result.getToken()).isEqualTo("TOKEN_" + result.getId());
+    }
+
+    @Test
+    void update_withNewCorreo_shouldRotateToken() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000014");
+        var existing = new Usuario(id, "Orig", "orig@ex.com", "pwd", null);
+        existing.setToken("OLD_TOKEN");
+        when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("NEW_TOKEN");
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var partial = new Usuario();
+        partial.setCorreo("nuevo@ex.com");
+        var result = usuarioService.update(id, partial);
+
+        assertThat(result.getToken()).isEqualTo("NEW_TOKEN");
+        verify(tokenRevocationIndex).revoke("OLD_TOKEN");
+        verify(usuarioDetailsCache).evict("orig@ex.com", "nuevo@ex.com");
+    }
+
+    @Test
+    void replace_shouldEvictOldAndNewCorreoFromDetailsCache() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000015");
+        var existing = new Usuario(id, "Orig", "orig@ex.com", "pwd", null);
+        when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("NEW_TOKEN");
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        usuarioService.replace(id, new Usuario(id, "Nuevo", "nuevo@ex.com", null, null));
+
+        verify(usuarioDetailsCache).evict("orig@ex.com", "nuevo@ex.com");
+    }
+
+    @Test
+    void update_withPendingLogin_shouldRevokePendingTokenAndPersistIt() {
+        var id = UUID.fromString("00000000-0000-0000-0000-000000000016");
+        var existing = new Usuario(id, "Orig", "orig@ex.com", "pwd", null);
+        existing.setToken("DB_TOKEN");
+        var ultimoLogin = java.time.LocalDateTime.now();
+        when(loginWriteBehind.take(id)).thenReturn(Optional.of(new LoginWriteBehind.Pendiente(ultimoLogin, "PENDING_TOKEN")));
+        when(usuarioRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("NEW_TOKEN");
+        when(passwordEncoder.encode(anyString())).thenReturn("ENCODED_NEW");
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var partial = new Usuario();
+        partial.setContrasena("NewPass1A");
+        var result = usuarioService.update(id, partial);
+
+        verify(tokenRevocationIndex).revoke("PENDING_TOKEN");
+        assertThat(result.getUltimoLogin()).isEqualTo(ultimoLogin);
+        assertThat(result.getToken()).isEqualTo("NEW_TOKEN");
+    }
+
+    @Test
+    void create_whenCorreoNotInIndex_shouldSkipLookupAndRegisterIt() {
+        var u = new Usuario("New", "fresh@example.com", "NewPass1A");
+        when(correoIndex.mightExist("fresh@example.com")).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("ENCODED");
+        when(jwtUtil.generateToken(any(Usuario.class))).thenReturn("TOKEN");
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        usuarioService.create(u);
+
+        verify(usuarioRepository, never()).existsByCorreo(anyString());
+        verify(correoIndex).add("fresh@example.com");
+    }
 }